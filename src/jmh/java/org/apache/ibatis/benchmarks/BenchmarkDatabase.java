@@ -0,0 +1,92 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+/**
+ * An in-memory HSQLDB database of authors and their posts shared by the benchmarks.
+ */
+final class BenchmarkDatabase {
+
+  static final int AUTHORS = 1000;
+  static final int POSTS_PER_AUTHOR = 5;
+
+  private static final String MAPPER = "org/apache/ibatis/benchmarks/BenchmarkMapper.xml";
+
+  private BenchmarkDatabase() {
+  }
+
+  static UnpooledDataSource dataSource(String name) {
+    return new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:" + name, "sa", "");
+  }
+
+  static void create(DataSource dataSource) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("drop table post if exists");
+        statement.execute("drop table author if exists");
+        statement.execute("create table author (id int primary key, username varchar(32), email varchar(64), bio varchar(255))");
+        statement.execute("create table post (id int primary key, author_id int, subject varchar(64), body varchar(255))");
+      }
+      try (PreparedStatement authors = connection.prepareStatement("insert into author values (?, ?, ?, ?)");
+          PreparedStatement posts = connection.prepareStatement("insert into post values (?, ?, ?, ?)")) {
+        for (int id = 0; id < AUTHORS; id++) {
+          authors.setInt(1, id);
+          authors.setString(2, "author" + id);
+          authors.setString(3, "author" + id + "@example.com");
+          authors.setString(4, "Biography of author " + id);
+          authors.addBatch();
+          for (int i = 0; i < POSTS_PER_AUTHOR; i++) {
+            posts.setInt(1, id * POSTS_PER_AUTHOR + i);
+            posts.setInt(2, id);
+            posts.setString(3, "Subject " + i);
+            posts.setString(4, "Body of post " + i + " by author " + id);
+            posts.addBatch();
+          }
+        }
+        authors.executeBatch();
+        posts.executeBatch();
+      }
+    }
+  }
+
+  static SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws IOException {
+    Configuration configuration = new Configuration(
+        new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+    try (InputStream inputStream = Resources.getResourceAsStream(MAPPER)) {
+      new XMLMapperBuilder(inputStream, configuration, MAPPER, configuration.getSqlFragments()).parse();
+    }
+    return new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+}
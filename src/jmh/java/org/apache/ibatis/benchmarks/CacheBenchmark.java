@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Looks up second level caches built by {@link CacheBuilder} from several threads, and builds cache keys the way the
+ * executors do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CacheBenchmark {
+
+  private static final int SIZE = 1024;
+
+  @Param({ "LRU", "FIFO", "TINYLFU" })
+  public String eviction;
+
+  private Cache cache;
+  private CacheKey[] keys;
+
+  @Setup
+  public void setup() {
+    cache = new CacheBuilder("benchmark")
+        .implementation(PerpetualCache.class)
+        .addDecorator(new Configuration().getTypeAliasRegistry().resolveAlias(eviction))
+        .size(SIZE)
+        .build();
+    // twice as many keys as entries, so that half of the lookups miss
+    keys = new CacheKey[SIZE * 2];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = createCacheKey(i);
+    }
+    for (int i = 0; i < SIZE; i++) {
+      cache.putObject(keys[i], i);
+    }
+  }
+
+  @Benchmark
+  public Object hit() {
+    return cache.getObject(keys[ThreadLocalRandom.current().nextInt(SIZE)]);
+  }
+
+  @Benchmark
+  public Object miss() {
+    return cache.getObject(keys[SIZE + ThreadLocalRandom.current().nextInt(SIZE)]);
+  }
+
+  @Benchmark
+  public Object getOrPut() {
+    CacheKey key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    Object value = cache.getObject(key);
+    if (value == null) {
+      cache.putObject(key, key);
+    }
+    return value;
+  }
+
+  @Benchmark
+  public CacheKey cacheKey() {
+    return createCacheKey(ThreadLocalRandom.current().nextInt(SIZE));
+  }
+
+  private static CacheKey createCacheKey(int id) {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("org.apache.ibatis.benchmarks.selectAuthor");
+    cacheKey.update(RowBounds.DEFAULT.getOffset());
+    cacheKey.update(RowBounds.DEFAULT.getLimit());
+    cacheKey.update("select id, username, email, bio from author where id = ?");
+    cacheKey.update(id);
+    cacheKey.update("benchmark");
+    return cacheKey;
+  }
+
+}
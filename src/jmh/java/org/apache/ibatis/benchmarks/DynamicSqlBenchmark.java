@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the SQL of a dynamic statement with conditions and a <code>foreach</code> over a list of ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicSqlBenchmark {
+
+  private static final String SCRIPT = "<script>"
+      + "select id, username, email, bio from author"
+      + "<where>"
+      + "<if test=\"username != null\">username = #{username}</if>"
+      + "<if test=\"email != null\">and email like #{email}</if>"
+      + "<if test=\"ids != null and ids.size() > 0\">"
+      + "and id in <foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>"
+      + "</if>"
+      + "</where>"
+      + "order by id"
+      + "</script>";
+
+  @Param({ "10", "100", "1000" })
+  public int size;
+
+  private SqlSource sqlSource;
+  private Map<String, Object> parameter;
+
+  @Setup
+  public void setup() {
+    Configuration configuration = new Configuration();
+    sqlSource = new XMLLanguageDriver().createSqlSource(configuration, SCRIPT, Map.class);
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      ids.add(i);
+    }
+    parameter = new HashMap<>();
+    parameter.put("username", "author1");
+    parameter.put("email", null);
+    parameter.put("ids", ids);
+  }
+
+  @Benchmark
+  public BoundSql foreach() {
+    return sqlSource.getBoundSql(parameter);
+  }
+
+}
@@ -63,4 +63,22 @@ public @interface One {
    */
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * Returns the maximum number of parent rows whose nested statement is run at once. The statement then receives a
+   * list of the parent keys and {@link #foreignColumn()} must be specified.
+   *
+   * @return the batch size, 0 to run the nested statement once per parent row
+   * @since 3.5.7
+   */
+  int batchSize() default 0;
+
+  /**
+   * Returns the column of the nested statement's results that holds the parent key, used to match its rows with the
+   * parent rows when {@link #batchSize()} is specified.
+   *
+   * @return the foreign column
+   * @since 3.5.7
+   */
+  String foreignColumn() default "";
+
 }
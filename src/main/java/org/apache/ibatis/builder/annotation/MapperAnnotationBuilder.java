@@ -33,6 +33,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -410,6 +412,16 @@ public class MapperAnnotationBuilder {
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    if (CompletableFuture.class.equals(returnType) || CompletionStage.class.equals(returnType)) {
+      // the statement returns the result of the future
+      resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+          ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      if (resolvedReturnType instanceof ParameterizedType) {
+        returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+      } else if (!(resolvedReturnType instanceof Class)) {
+        returnType = Object.class;
+      }
+    }
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
@@ -487,8 +499,9 @@ public class MapperAnnotationBuilder {
           typeHandler,
           flags,
           null,
-          null,
-          isLazy(result));
+          findForeignColumn(result),
+          isLazy(result),
+          findBatchSize(result));
       resultMappings.add(resultMapping);
     }
   }
@@ -501,6 +514,18 @@ public class MapperAnnotationBuilder {
     return columnPrefix;
   }
 
+  private String findForeignColumn(Result result) {
+    String foreignColumn = result.one().foreignColumn();
+    if (foreignColumn.length() < 1) {
+      foreignColumn = result.many().foreignColumn();
+    }
+    return nullOrEmpty(foreignColumn);
+  }
+
+  private int findBatchSize(Result result) {
+    return Math.max(result.one().batchSize(), result.many().batchSize());
+  }
+
   private String nestedResultMapId(Result result) {
     String resultMapId = result.one().resultMap();
     if (resultMapId.length() < 1) {
@@ -15,9 +15,15 @@
  */
 package org.apache.ibatis.builder.xml;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
@@ -270,6 +276,12 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
     configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
     configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
+    configuration.setAsyncMaxConcurrency(integerValueOf(props.getProperty("asyncMaxConcurrency"), null));
+    configuration.setMultiRowInsertSize(integerValueOf(props.getProperty("multiRowInsertSize"), null));
+    configuration.setGroupBatchedInserts(booleanValueOf(props.getProperty("groupBatchedInserts"), false));
+    configuration.setParallelMapperParsing(booleanValueOf(props.getProperty("parallelMapperParsing"), false));
+    configuration.setLazyStatementBuilding(booleanValueOf(props.getProperty("lazyStatementBuilding"), false));
+    configuration.setCursorPrefetchSize(integerValueOf(props.getProperty("cursorPrefetchSize"), null));
   }
 
   private void environmentsElement(XNode context) throws Exception {
@@ -362,37 +374,91 @@ public class XMLConfigBuilder extends BaseBuilder {
 
   private void mapperElement(XNode parent) throws Exception {
     if (parent != null) {
-      for (XNode child : parent.getChildren()) {
-        if ("package".equals(child.getName())) {
-          String mapperPackage = child.getStringAttribute("name");
-          configuration.addMappers(mapperPackage);
-        } else {
-          String resource = child.getStringAttribute("resource");
-          String url = child.getStringAttribute("url");
-          String mapperClass = child.getStringAttribute("class");
-          if (resource != null && url == null && mapperClass == null) {
-            ErrorContext.instance().resource(resource);
-            try(InputStream inputStream = Resources.getResourceAsStream(resource)) {
-              XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+      List<XNode> children = parent.getChildren();
+      List<Future<XPathParser>> documents = configuration.isParallelMapperParsing() ? parseMapperDocuments(children) : null;
+      try {
+        for (int i = 0; i < children.size(); i++) {
+          XNode child = children.get(i);
+          if ("package".equals(child.getName())) {
+            String mapperPackage = child.getStringAttribute("name");
+            configuration.addMappers(mapperPackage);
+          } else {
+            String resource = child.getStringAttribute("resource");
+            String url = child.getStringAttribute("url");
+            String mapperClass = child.getStringAttribute("class");
+            if (resource != null && url == null && mapperClass == null) {
+              ErrorContext.instance().resource(resource);
+              XPathParser document = documents == null ? parseMapperDocument(resource, null) : getMapperDocument(documents.get(i));
+              XMLMapperBuilder mapperParser = new XMLMapperBuilder(document, configuration, resource, configuration.getSqlFragments());
               mapperParser.parse();
-            }
-          } else if (resource == null && url != null && mapperClass == null) {
-            ErrorContext.instance().resource(url);
-            try(InputStream inputStream = Resources.getUrlAsStream(url)){
-              XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url, configuration.getSqlFragments());
+            } else if (resource == null && url != null && mapperClass == null) {
+              ErrorContext.instance().resource(url);
+              XPathParser document = documents == null ? parseMapperDocument(null, url) : getMapperDocument(documents.get(i));
+              XMLMapperBuilder mapperParser = new XMLMapperBuilder(document, configuration, url, configuration.getSqlFragments());
               mapperParser.parse();
+            } else if (resource == null && url == null && mapperClass != null) {
+              Class<?> mapperInterface = Resources.classForName(mapperClass);
+              configuration.addMapper(mapperInterface);
+            } else {
+              throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
             }
-          } else if (resource == null && url == null && mapperClass != null) {
-            Class<?> mapperInterface = Resources.classForName(mapperClass);
-            configuration.addMapper(mapperInterface);
-          } else {
-            throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
           }
         }
+      } finally {
+        if (documents != null) {
+          documents.stream().filter(document -> document != null).forEach(document -> document.cancel(false));
+        }
       }
     }
   }
 
+  /**
+   * Reads and validates the mapper XML files on the common fork-join pool. The documents are registered into the
+   * configuration one after the other in the order of the mappers element, so that they resolve each other (and
+   * fail) exactly as if they had been parsed one after the other.
+   */
+  private List<Future<XPathParser>> parseMapperDocuments(List<XNode> children) {
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    List<Future<XPathParser>> documents = new ArrayList<>(children.size());
+    for (XNode child : children) {
+      String resource = child.getStringAttribute("resource");
+      String url = child.getStringAttribute("url");
+      if ("package".equals(child.getName()) || (resource == null) == (url == null) || child.getStringAttribute("class") != null) {
+        documents.add(null);
+        continue;
+      }
+      documents.add(ForkJoinPool.commonPool().submit(() -> {
+        Thread thread = Thread.currentThread();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(contextClassLoader);
+        try {
+          return parseMapperDocument(resource, url);
+        } finally {
+          thread.setContextClassLoader(previousClassLoader);
+        }
+      }));
+    }
+    return documents;
+  }
+
+  private XPathParser getMapperDocument(Future<XPathParser> document) throws Exception {
+    try {
+      return document.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw (Error) cause;
+    }
+  }
+
+  private XPathParser parseMapperDocument(String resource, String url) throws IOException {
+    try (InputStream inputStream = resource != null ? Resources.getResourceAsStream(resource) : Resources.getUrlAsStream(url)) {
+      return new XPathParser(inputStream, true, configuration.getVariables(), new XMLMapperEntityResolver());
+    }
+  }
+
   private boolean isSpecifiedEnvironment(String id) {
     if (environment == null) {
       throw new BuilderException("No environment specified.");
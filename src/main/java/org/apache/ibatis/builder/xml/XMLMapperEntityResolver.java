@@ -15,9 +15,13 @@
  */
 package org.apache.ibatis.builder.xml;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.io.Resources;
 import org.xml.sax.EntityResolver;
@@ -40,6 +44,9 @@ public class XMLMapperEntityResolver implements EntityResolver {
   private static final String MYBATIS_CONFIG_DTD = "org/apache/ibatis/builder/xml/mybatis-3-config.dtd";
   private static final String MYBATIS_MAPPER_DTD = "org/apache/ibatis/builder/xml/mybatis-3-mapper.dtd";
 
+  // every mapper file refers to the same DTD, so it is read from the class path once
+  private static final Map<String, byte[]> dtds = new ConcurrentHashMap<>();
+
   /**
    * Converts a public DTD into a local one.
    *
@@ -73,8 +80,12 @@ public class XMLMapperEntityResolver implements EntityResolver {
     InputSource source = null;
     if (path != null) {
       try {
-        InputStream in = Resources.getResourceAsStream(path);
-        source = new InputSource(in);
+        byte[] dtd = dtds.get(path);
+        if (dtd == null) {
+          dtd = readDtd(path);
+          dtds.put(path, dtd);
+        }
+        source = new InputSource(new ByteArrayInputStream(dtd));
         source.setPublicId(publicId);
         source.setSystemId(systemId);
       } catch (IOException e) {
@@ -84,4 +95,16 @@ public class XMLMapperEntityResolver implements EntityResolver {
     return source;
   }
 
+  private static byte[] readDtd(String path) throws IOException {
+    try (InputStream in = Resources.getResourceAsStream(path)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    }
+  }
+
 }
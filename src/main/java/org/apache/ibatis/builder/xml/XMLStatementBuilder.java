@@ -17,21 +17,30 @@ package org.apache.ibatis.builder.xml;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.Properties;
+import java.util.function.Supplier;
 
 import org.apache.ibatis.builder.BaseBuilder;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.mapping.LazyMappedStatement;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * @author Clinton Begin
@@ -63,6 +72,60 @@ public class XMLStatementBuilder extends BaseBuilder {
 
     String nodeName = context.getNode().getNodeName();
     SqlCommandType sqlCommandType = SqlCommandType.valueOf(nodeName.toUpperCase(Locale.ENGLISH));
+
+    String parameterType = context.getStringAttribute("parameterType");
+    Class<?> parameterTypeClass = resolveClass(parameterType);
+
+    String lang = context.getStringAttribute("lang");
+    LanguageDriver langDriver = getLanguageDriver(lang);
+
+    // <selectKey> registers statements and key generators of its own, so it is always parsed upfront
+    if (configuration.isLazyStatementBuilding() && context.getNode() instanceof Element
+        && ((Element) context.getNode()).getElementsByTagName("selectKey").getLength() == 0) {
+      // fragments are included now, so that the statement can be built from a copy of its own node
+      XMLIncludeTransformer includeParser = new XMLIncludeTransformer(configuration, builderAssistant);
+      includeParser.applyIncludes(context.getNode());
+      XMLStatementBuilder statementBuilder = new XMLStatementBuilder(configuration, builderAssistant, detachContext(),
+          requiredDatabaseId);
+      configuration.addLazyMappedStatement(new LazyMappedStatement(builderAssistant.applyCurrentNamespace(id, false),
+          builderAssistant.getResource(), databaseId,
+          lazyStatement(statementBuilder, id, databaseId, sqlCommandType, parameterTypeClass, langDriver)));
+      return;
+    }
+
+    buildStatement(id, databaseId, sqlCommandType, parameterTypeClass, langDriver, true);
+  }
+
+  /**
+   * Copies the statement node to a document of its own, so that the statement does not keep the DOM of the whole
+   * mapper until it is built.
+   */
+  private XNode detachContext() {
+    Node node = context.getNode();
+    Document document = node.getOwnerDocument().getImplementation().createDocument(null, null, null);
+    document.appendChild(document.importNode(node, true));
+    Properties variables = configuration.getVariables();
+    return new XNode(new XPathParser(document, false, variables), document.getDocumentElement(), variables);
+  }
+
+  // static, so that the supplier does not keep this builder and its node
+  private static Supplier<MappedStatement> lazyStatement(XMLStatementBuilder statementBuilder, String id,
+      String databaseId, SqlCommandType sqlCommandType, Class<?> parameterTypeClass, LanguageDriver langDriver) {
+    String resource = statementBuilder.builderAssistant.getResource();
+    return () -> {
+      ErrorContext.instance().store().resource(resource).activity("building statement " + id);
+      try {
+        return statementBuilder.buildStatement(id, databaseId, sqlCommandType, parameterTypeClass, langDriver, false);
+      } catch (RuntimeException e) {
+        throw new BuilderException("Error building statement '" + id + "' of '" + resource + "'. Cause: " + e, e);
+      } finally {
+        ErrorContext.instance().recall();
+      }
+    };
+  }
+
+  private MappedStatement buildStatement(String id, String databaseId, SqlCommandType sqlCommandType,
+      Class<?> parameterTypeClass, LanguageDriver langDriver, boolean register) {
     boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
     boolean flushCache = context.getBooleanAttribute("flushCache", !isSelect);
     boolean useCache = context.getBooleanAttribute("useCache", isSelect);
@@ -72,12 +135,6 @@ public class XMLStatementBuilder extends BaseBuilder {
     XMLIncludeTransformer includeParser = new XMLIncludeTransformer(configuration, builderAssistant);
     includeParser.applyIncludes(context.getNode());
 
-    String parameterType = context.getStringAttribute("parameterType");
-    Class<?> parameterTypeClass = resolveClass(parameterType);
-
-    String lang = context.getStringAttribute("lang");
-    LanguageDriver langDriver = getLanguageDriver(lang);
-
     // Parse selectKey after includes and remove them.
     processSelectKeyNodes(id, parameterTypeClass, langDriver);
 
@@ -110,7 +167,13 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyColumn = context.getStringAttribute("keyColumn");
     String resultSets = context.getStringAttribute("resultSets");
 
-    builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
+    if (!register) {
+      return builderAssistant.buildMappedStatement(id, sqlSource, statementType, sqlCommandType,
+          fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
+          resultSetTypeEnum, flushCache, useCache, resultOrdered,
+          keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+    }
+    return builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered,
         keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
@@ -185,6 +248,10 @@ public class XMLStatementBuilder extends BaseBuilder {
     if (!this.configuration.hasStatement(id, false)) {
       return true;
     }
+    LazyMappedStatement lazyPrevious = this.configuration.getLazyMappedStatement(id);
+    if (lazyPrevious != null) {
+      return lazyPrevious.getDatabaseId() == null;
+    }
     // skip this statement if there is a previous one with a not null databaseId
     MappedStatement previous = this.configuration.getMappedStatement(id, false); // issue #2
     return previous.getDatabaseId() == null;
@@ -15,8 +15,13 @@
  */
 package org.apache.ibatis.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -29,6 +34,14 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final long serialVersionUID = 1146682552656046210L;
 
+  // keeps the serialized form of the releases that stored the components in an ArrayList
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("multiplier", int.class),
+      new ObjectStreamField("hashcode", int.class),
+      new ObjectStreamField("checksum", long.class),
+      new ObjectStreamField("count", int.class),
+      new ObjectStreamField("updateList", List.class) };
+
   public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
     @Override
@@ -36,6 +49,11 @@ public class CacheKey implements Cloneable, Serializable {
       throw new CacheException("Not allowed to update a null cache key instance.");
     }
 
+    @Override
+    public void update(int value) {
+      throw new CacheException("Not allowed to update a null cache key instance.");
+    }
+
     @Override
     public void updateAll(Object[] objects) {
       throw new CacheException("Not allowed to update a null cache key instance.");
@@ -44,46 +62,82 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final int DEFAULT_MULTIPLIER = 37;
   private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final Object[] EMPTY_COMPONENTS = {};
+  // RowBounds.NO_ROW_LIMIT, which Integer.valueOf() does not cache
+  private static final Integer NO_ROW_LIMIT = Integer.MAX_VALUE;
 
-  private final int multiplier;
   private int hashcode;
   private long checksum;
   private int count;
-  // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
-  // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] components;
 
   public CacheKey() {
     this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLIER;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.components = EMPTY_COMPONENTS;
   }
 
-  public CacheKey(Object[] objects) {
+  /**
+   * Creates a key sized for the given number of components, so that updating it does not grow its storage.
+   *
+   * @param expectedUpdateCount
+   *          the expected number of updates
+   * @since 3.5.7
+   */
+  public CacheKey(int expectedUpdateCount) {
     this();
+    if (expectedUpdateCount > 0) {
+      this.components = new Object[expectedUpdateCount];
+    }
+  }
+
+  public CacheKey(Object[] objects) {
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
     int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+    add(object, baseHashCode);
+  }
 
+  /**
+   * Same as {@link #update(Object)} with the boxed value, without allocating a box for the usual offsets and limits.
+   *
+   * @param value
+   *          the value
+   * @since 3.5.7
+   */
+  public void update(int value) {
+    add(value == Integer.MAX_VALUE ? NO_ROW_LIMIT : Integer.valueOf(value), value);
+  }
+
+  public void updateAll(Object[] objects) {
+    ensureCapacity(count + objects.length);
+    for (Object o : objects) {
+      update(o);
+    }
+  }
+
+  private void add(Object object, int baseHashCode) {
     count++;
     checksum += baseHashCode;
     baseHashCode *= count;
 
-    hashcode = multiplier * hashcode + baseHashCode;
+    hashcode = DEFAULT_MULTIPLIER * hashcode + baseHashCode;
 
-    updateList.add(object);
+    ensureCapacity(count);
+    components[count - 1] = object;
   }
 
-  public void updateAll(Object[] objects) {
-    for (Object o : objects) {
-      update(o);
+  private void ensureCapacity(int capacity) {
+    if (capacity > components.length) {
+      components = Arrays.copyOf(components, Math.max(capacity, Math.max(DEFAULT_CAPACITY, components.length << 1)));
     }
   }
 
@@ -108,9 +162,9 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
+    for (int i = 0; i < count; i++) {
+      Object thisObject = components[i];
+      Object thatObject = cacheKey.components[i];
       if (!ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
@@ -128,15 +182,37 @@ public class CacheKey implements Cloneable, Serializable {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
     returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(components[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    // one spare slot: a clone is usually updated once more, e.g. with the key of the parent row
+    clonedCacheKey.components = count == 0 ? EMPTY_COMPONENTS : Arrays.copyOf(components, count + 1);
     return clonedCacheKey;
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("multiplier", DEFAULT_MULTIPLIER);
+    fields.put("hashcode", hashcode);
+    fields.put("checksum", checksum);
+    fields.put("count", count);
+    fields.put("updateList", new ArrayList<>(Arrays.asList(components).subList(0, count)));
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    hashcode = fields.get("hashcode", DEFAULT_HASHCODE);
+    checksum = fields.get("checksum", 0L);
+    List<?> updateList = (List<?>) fields.get("updateList", null);
+    components = updateList == null ? EMPTY_COMPONENTS : updateList.toArray();
+    count = components.length;
+  }
+
 }
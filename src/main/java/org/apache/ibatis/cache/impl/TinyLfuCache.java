@@ -0,0 +1,402 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A bounded cache that can be used concurrently without an external lock, evicting with the W-TinyLFU policy.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so reads and writes never wait for each other. The eviction policy is
+ * maintained under a lock that is only ever tried: reads are recorded in lossy striped buffers and writes in a queue,
+ * and whichever thread gets the lock replays them. New entries enter a small LRU window; when the window overflows, its
+ * oldest entry is only admitted to the main space (a segmented LRU) if it was accessed more often than the entry it
+ * would evict, as estimated by a {@link FrequencySketch}. This keeps one-off queries from flushing popular results.
+ * <p>
+ * Being thread-safe and bounded, this cache is not wrapped with the eviction decorators nor with
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ *
+ * @since 3.5.7
+ */
+public class TinyLfuCache implements Cache {
+
+  private static final int DEFAULT_SIZE = 1024;
+  private static final int READ_BUFFER_STRIPES = stripes();
+
+  private final String id;
+  private final ConcurrentHashMap<Object, Node> cache = new ConcurrentHashMap<>();
+  private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+  private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  // guarded by evictionLock
+  private final AccessOrderQueue window = new AccessOrderQueue();
+  private final AccessOrderQueue probation = new AccessOrderQueue();
+  private final AccessOrderQueue protectedQueue = new AccessOrderQueue();
+  private FrequencySketch sketch;
+  private int maximumSize;
+  private int windowMaximum;
+  private int protectedMaximum;
+
+  public TinyLfuCache(String id) {
+    this.id = id;
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+    setSize(DEFAULT_SIZE);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * Sets the maximum number of entries. Defaults to 1024.
+   *
+   * @param size
+   *          the maximum number of entries
+   */
+  public void setSize(int size) {
+    if (size < 1) {
+      throw new CacheException("The size of cache '" + id + "' must be greater than 0 but was " + size);
+    }
+    evictionLock.lock();
+    try {
+      maintenance();
+      maximumSize = size;
+      windowMaximum = Math.max(1, size / 100);
+      protectedMaximum = (int) ((size - windowMaximum) * 0.8);
+      sketch = new FrequencySketch(size);
+      while (window.size() + probation.size() + protectedQueue.size() > maximumSize) {
+        AccessOrderQueue queue = probation.isEmpty() ? protectedQueue.isEmpty() ? window : protectedQueue : probation;
+        evict(queue.peekFirst());
+      }
+      while (protectedQueue.size() > protectedMaximum) {
+        demote();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Node node = new Node(key, value);
+    Node prior = cache.putIfAbsent(key, node);
+    if (prior == null) {
+      afterWrite(() -> onAdd(node));
+    } else {
+      prior.value = value;
+      afterRead(prior);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = cache.get(key);
+    if (node == null) {
+      return null;
+    }
+    afterRead(node);
+    return node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Node node = cache.remove(key);
+    if (node == null) {
+      return null;
+    }
+    afterWrite(() -> onRemove(node));
+    return node.value;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      maintenance();
+      for (AccessOrderQueue queue : new AccessOrderQueue[] { window, probation, protectedQueue }) {
+        Node node;
+        while ((node = queue.pollFirst()) != null) {
+          cache.remove(node.key, node);
+        }
+      }
+      // entries whose addition is still being recorded by another thread
+      cache.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void afterRead(Node node) {
+    ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFER_STRIPES - 1)];
+    if (!buffer.offer(node)) {
+      tryMaintenance();
+    }
+  }
+
+  private void afterWrite(Runnable task) {
+    writeBuffer.add(task);
+    tryMaintenance();
+  }
+
+  private void tryMaintenance() {
+    do {
+      if (!evictionLock.tryLock()) {
+        // the thread holding the lock will check the write buffer again after releasing it
+        return;
+      }
+      try {
+        maintenance();
+      } finally {
+        evictionLock.unlock();
+      }
+    } while (!writeBuffer.isEmpty());
+  }
+
+  private void maintenance() {
+    for (ReadBuffer buffer : readBuffers) {
+      buffer.drainTo(this);
+    }
+    Runnable task;
+    while ((task = writeBuffer.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void onAccess(Node node) {
+    sketch.increment(node.key);
+    if (node.queue == window) {
+      window.moveToBack(node);
+    } else if (node.queue == probation) {
+      probation.remove(node);
+      protectedQueue.add(node);
+      while (protectedQueue.size() > protectedMaximum) {
+        demote();
+      }
+    } else if (node.queue == protectedQueue) {
+      protectedQueue.moveToBack(node);
+    }
+  }
+
+  private void onAdd(Node node) {
+    if (cache.get(node.key) != node || node.queue != null) {
+      // removed before its addition was recorded
+      return;
+    }
+    sketch.increment(node.key);
+    window.add(node);
+    while (window.size() > windowMaximum) {
+      Node candidate = window.pollFirst();
+      if (window.size() + probation.size() + protectedQueue.size() < maximumSize) {
+        probation.add(candidate);
+        continue;
+      }
+      Node victim = probation.isEmpty() ? protectedQueue.peekFirst() : probation.peekFirst();
+      if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+        cache.remove(candidate.key, candidate);
+      } else {
+        evict(victim);
+        probation.add(candidate);
+      }
+    }
+  }
+
+  private void onRemove(Node node) {
+    if (node.queue != null) {
+      node.queue.remove(node);
+    }
+  }
+
+  private void demote() {
+    probation.add(protectedQueue.pollFirst());
+  }
+
+  private void evict(Node node) {
+    node.queue.remove(node);
+    cache.remove(node.key, node);
+  }
+
+  private static int stripes() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    return Math.min(64, Integer.highestOneBit(Math.max(1, processors - 1)) << 1);
+  }
+
+  private static final class Node {
+    final Object key;
+    volatile Object value;
+
+    // guarded by evictionLock
+    AccessOrderQueue queue;
+    Node prev;
+    Node next;
+
+    Node(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * A doubly linked list of the entries of one region of the policy, from least to most recently used.
+   */
+  private static final class AccessOrderQueue {
+    private Node first;
+    private Node last;
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    Node peekFirst() {
+      return first;
+    }
+
+    Node pollFirst() {
+      Node node = first;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void add(Node node) {
+      node.queue = this;
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+      size++;
+    }
+
+    void remove(Node node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.queue = null;
+      node.prev = null;
+      node.next = null;
+      size--;
+    }
+
+    void moveToBack(Node node) {
+      if (node != last) {
+        remove(node);
+        add(node);
+      }
+    }
+  }
+
+  /**
+   * A bounded buffer of reads to replay on the policy. Reads are dropped when it is full, as losing a few of them only
+   * makes the recency and frequency slightly less accurate.
+   */
+  private static final class ReadBuffer {
+    private static final int CAPACITY = 16;
+    private static final int MASK = CAPACITY - 1;
+
+    private final AtomicReferenceArray<Node> buffer = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter;
+
+    /**
+     * Returns false if the buffer is full and should be drained.
+     */
+    boolean offer(Node node) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      if (tail - head >= CAPACITY) {
+        return false;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) tail & MASK, node);
+      }
+      return true;
+    }
+
+    void drainTo(TinyLfuCache cache) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      for (; head < tail; head++) {
+        int index = (int) head & MASK;
+        Node node = buffer.get(index);
+        if (node == null) {
+          // not published yet
+          break;
+        }
+        buffer.lazySet(index, null);
+        cache.onAccess(node);
+      }
+      readCounter = head;
+    }
+  }
+
+}
@@ -0,0 +1,284 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ErrorContext;
+
+/**
+ * A cursor that reads the rows of another cursor ahead on a background thread, so that the driver fetches the next
+ * rows while the caller processes the previous ones.
+ * <p>
+ * Reading starts when the iterator is retrieved and stops when <code>prefetchSize</code> mapped rows wait to be
+ * consumed, so memory stays bounded however many rows the query returns. {@link #close()} stops the background thread
+ * before closing the underlying cursor. While rows are read ahead the session must not be used for anything else
+ * than this cursor, as the connection is then in use by the background thread. If the executor rejects the background
+ * read, rows are read on the calling thread when they are requested, like {@link DefaultCursor} does.
+ * <p>
+ * Like {@link DefaultCursor}, this implementation is not thread safe.
+ *
+ * @since 3.5.7
+ */
+public class PrefetchingCursor<T> implements Cursor<T> {
+
+  private static final Object NULL_ROW = new Object();
+  private static final Object END = new Object();
+
+  private static final int CREATED = 0;
+  private static final int SUBMITTED = 1;
+  private static final int RUNNING = 2;
+  private static final int STOPPED = 3;
+
+  private final Cursor<T> delegate;
+  private final Executor executor;
+  private final BlockingQueue<Object> buffer;
+  private final AtomicInteger producerState = new AtomicInteger(CREATED);
+  private final CountDownLatch producerFinished = new CountDownLatch(1);
+  private final int startIndex;
+
+  private volatile boolean closed;
+  private boolean consumed;
+  private int consumedCount;
+  private boolean iteratorRetrieved;
+  private boolean readInline;
+
+  /**
+   * Creates a cursor reading ahead on a shared pool of daemon threads.
+   *
+   * @param delegate
+   *          the cursor to read
+   * @param prefetchSize
+   *          the maximum number of rows read ahead
+   */
+  public PrefetchingCursor(Cursor<T> delegate, int prefetchSize) {
+    this(delegate, prefetchSize, null);
+  }
+
+  /**
+   * Creates a cursor reading ahead on the given executor.
+   *
+   * @param delegate
+   *          the cursor to read
+   * @param prefetchSize
+   *          the maximum number of rows read ahead
+   * @param executor
+   *          the executor running the background reads, or <code>null</code> to use a shared pool of daemon threads.
+   *          It must not run the tasks of the thread iterating the cursor, as a task waiting for a free thread of a
+   *          bounded executor would block that thread forever.
+   */
+  public PrefetchingCursor(Cursor<T> delegate, int prefetchSize, Executor executor) {
+    if (prefetchSize < 1) {
+      throw new IllegalArgumentException("The prefetch size must be positive but was " + prefetchSize);
+    }
+    this.delegate = delegate;
+    this.executor = executor == null ? DefaultExecutorHolder.EXECUTOR : executor;
+    this.buffer = new ArrayBlockingQueue<>(prefetchSize);
+    this.startIndex = delegate.getCurrentIndex();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return readInline ? delegate.isOpen() : iteratorRetrieved && !closed;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return readInline ? delegate.isConsumed() : consumed;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return readInline ? delegate.getCurrentIndex() : startIndex + consumedCount;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    if (closed) {
+      throw new IllegalStateException("A Cursor is already closed.");
+    }
+    iteratorRetrieved = true;
+    producerState.set(SUBMITTED);
+    try {
+      executor.execute(this::prefetch);
+    } catch (RejectedExecutionException e) {
+      producerState.set(STOPPED);
+      readInline = true;
+      return delegate.iterator();
+    }
+    return new PrefetchingIterator();
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    // makes room for a row the background thread may be waiting to add
+    buffer.clear();
+    if (producerState.getAndSet(STOPPED) == RUNNING) {
+      awaitProducer();
+    }
+    buffer.clear();
+    try {
+      delegate.close();
+    } catch (Exception e) {
+      // ignore, like DefaultCursor
+    }
+  }
+
+  private void awaitProducer() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        producerFinished.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void prefetch() {
+    if (!producerState.compareAndSet(SUBMITTED, RUNNING)) {
+      // closed before the background thread started
+      return;
+    }
+    try {
+      Object last;
+      try {
+        Iterator<T> rows = delegate.iterator();
+        while (!closed && rows.hasNext()) {
+          T row = rows.next();
+          buffer.put(row == null ? NULL_ROW : row);
+        }
+        last = END;
+      } catch (RuntimeException | Error e) {
+        last = new Failure(e);
+      }
+      if (!closed) {
+        buffer.put(last);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (!closed) {
+        buffer.offer(new Failure(new PersistenceException("Interrupted while reading the rows of a cursor ahead.", e)));
+      }
+    } finally {
+      ErrorContext.instance().reset();
+      producerFinished.countDown();
+    }
+  }
+
+  private static class Failure {
+    private final Throwable cause;
+
+    Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  private static class DefaultExecutorHolder {
+    private static final ExecutorService EXECUTOR;
+
+    static {
+      AtomicInteger threadNumber = new AtomicInteger();
+      EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-cursor-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  private class PrefetchingIterator implements Iterator<T> {
+
+    /**
+     * Holder for the next element taken from the buffer.
+     */
+    private Object next;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = take();
+      }
+      return next != END;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Object row = next;
+      next = null;
+      consumedCount++;
+      return row == NULL_ROW ? null : (T) row;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+
+    private Object take() {
+      if (closed) {
+        return END;
+      }
+      Object element;
+      try {
+        element = buffer.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new PersistenceException("Interrupted while waiting for the next row of a cursor.", e);
+      }
+      if (element == END) {
+        close();
+        consumed = true;
+      } else if (element instanceof Failure) {
+        close();
+        Throwable cause = ((Failure) element).cause;
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw (RuntimeException) cause;
+      }
+      return element;
+    }
+  }
+
+}
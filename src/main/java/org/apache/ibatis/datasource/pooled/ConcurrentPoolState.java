@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link PoolState} of a {@link ConcurrentPooledDataSource}. Counters are striped so that updating them never
+ * blocks a thread borrowing or returning a connection.
+ */
+class ConcurrentPoolState extends PoolState {
+
+  private final ConnectionBag bag;
+
+  final LongAdder requests = new LongAdder();
+  final LongAdder accumulatedRequestTimes = new LongAdder();
+  final LongAdder accumulatedCheckoutTimes = new LongAdder();
+  final LongAdder claimedOverdueConnections = new LongAdder();
+  final LongAdder accumulatedCheckoutTimesOfOverdueConnections = new LongAdder();
+  final LongAdder accumulatedWaitTimes = new LongAdder();
+  final LongAdder hadToWaits = new LongAdder();
+  final LongAdder badConnections = new LongAdder();
+
+  ConcurrentPoolState(ConcurrentPooledDataSource dataSource, ConnectionBag bag) {
+    super(dataSource);
+    this.bag = bag;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  @Override
+  public long getAverageRequestTime() {
+    long count = requests.sum();
+    return count == 0 ? 0 : accumulatedRequestTimes.sum() / count;
+  }
+
+  @Override
+  public long getAverageWaitTime() {
+    long count = hadToWaits.sum();
+    return count == 0 ? 0 : accumulatedWaitTimes.sum() / count;
+  }
+
+  @Override
+  public long getHadToWaitCount() {
+    return hadToWaits.sum();
+  }
+
+  @Override
+  public long getBadConnectionCount() {
+    return badConnections.sum();
+  }
+
+  @Override
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnections.sum();
+  }
+
+  @Override
+  public long getAverageOverdueCheckoutTime() {
+    long count = claimedOverdueConnections.sum();
+    return count == 0 ? 0 : accumulatedCheckoutTimesOfOverdueConnections.sum() / count;
+  }
+
+  @Override
+  public long getAverageCheckoutTime() {
+    long count = requests.sum();
+    return count == 0 ? 0 : accumulatedCheckoutTimes.sum() / count;
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return bag.getIdleCount();
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return bag.getActiveCount();
+  }
+
+}
@@ -0,0 +1,304 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A {@link PooledDataSource} that never blocks on a shared monitor to borrow or return a connection.
+ * <p>
+ * Connections are kept in a {@link ConnectionBag}: a thread gets back the connection it returned last when it is
+ * still idle, otherwise it claims any idle connection with a CAS, and only parks when the pool is exhausted. Returning
+ * threads hand their connection directly to a waiting thread. Configuration properties and {@link PoolState}
+ * statistics are the same as {@link PooledDataSource}.
+ *
+ * @since 3.5.7
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+  private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+  private final ConnectionBag bag = new ConnectionBag();
+  private final ConcurrentPoolState state = new ConcurrentPoolState(this, bag);
+
+  public ConcurrentPooledDataSource() {
+    super();
+  }
+
+  public ConcurrentPooledDataSource(UnpooledDataSource dataSource) {
+    super(dataSource);
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+    super(driver, url, username, password);
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+    super(driver, url, driverProperties);
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username, String password) {
+    super(driverClassLoader, driver, url, username, password);
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, Properties driverProperties) {
+    super(driverClassLoader, driver, url, driverProperties);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return popConnection(username, password).getProxyConnection();
+  }
+
+  @Override
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+    for (ConnectionBag.Entry entry : bag.entries()) {
+      bag.remove(entry);
+      try {
+        PooledConnection conn = entry.getConnection();
+        conn.invalidate();
+
+        Connection realConn = conn.getRealConnection();
+        if (!realConn.getAutoCommit()) {
+          realConn.rollback();
+        }
+        realConn.close();
+      } catch (Exception e) {
+        // ignore
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+  }
+
+  @Override
+  public PoolState getPoolState() {
+    return state;
+  }
+
+  @Override
+  protected void pushConnection(PooledConnection conn) throws SQLException {
+    ConnectionBag.Entry entry = bag.find(conn);
+    if (entry == null || !entry.compareAndSetState(ConnectionBag.STATE_IN_USE, ConnectionBag.STATE_RESERVED)) {
+      // already returned, claimed as overdue or closed by forceCloseAll()
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnections.increment();
+      return;
+    }
+    if (!conn.isValid()) {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnections.increment();
+      bag.remove(entry);
+      return;
+    }
+    state.accumulatedCheckoutTimes.add(conn.getCheckoutTime());
+    try {
+      if (!conn.getRealConnection().getAutoCommit()) {
+        conn.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      bag.remove(entry);
+      conn.invalidate();
+      throw e;
+    }
+    if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && bag.reserveIdle(poolMaximumIdleConnections)) {
+      PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+      newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+      newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+      conn.moveStatementCacheTo(newConn);
+      entry.setConnection(newConn);
+      conn.invalidate();
+      if (bag.requite(entry)) {
+        if (log.isDebugEnabled()) {
+          log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+        }
+        return;
+      }
+      // removed by forceCloseAll() in the meantime
+      conn = newConn;
+    } else {
+      bag.remove(entry);
+    }
+    conn.getRealConnection().close();
+    if (log.isDebugEnabled()) {
+      log.debug("Closed connection " + conn.getRealHashCode() + ".");
+    }
+    conn.invalidate();
+  }
+
+  private PooledConnection popConnection(String username, String password) throws SQLException {
+    boolean countedWait = false;
+    PooledConnection conn = null;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
+
+    while (conn == null) {
+      ConnectionBag.Entry entry = bag.borrow();
+      if (entry != null) {
+        // Pool has available connection
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + entry.getConnection().getRealHashCode() + " from pool.");
+        }
+      } else if (bag.reserve(poolMaximumActiveConnections)) {
+        // Can create new connection
+        PooledConnection newConn;
+        try {
+          newConn = new PooledConnection(dataSource.getConnection(), this);
+        } catch (SQLException | RuntimeException e) {
+          bag.unreserve();
+          throw e;
+        }
+        entry = bag.add(newConn);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + newConn.getRealHashCode() + ".");
+        }
+      } else {
+        // Cannot create new connection
+        entry = claimOverdueConnection();
+        if (entry == null) {
+          // Must wait
+          if (!countedWait) {
+            state.hadToWaits.increment();
+            countedWait = true;
+          }
+          if (log.isDebugEnabled()) {
+            log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+          }
+          long wt = System.currentTimeMillis();
+          try {
+            entry = bag.poll(poolTimeToWait, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+            break;
+          }
+          state.accumulatedWaitTimes.add(System.currentTimeMillis() - wt);
+        }
+      }
+      if (entry != null) {
+        conn = entry.getConnection();
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          try {
+            if (!conn.getRealConnection().getAutoCommit()) {
+              conn.getRealConnection().rollback();
+            }
+          } catch (SQLException e) {
+            bag.remove(entry);
+            conn.invalidate();
+            throw e;
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          state.requests.increment();
+          state.accumulatedRequestTimes.add(System.currentTimeMillis() - t);
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+          }
+          state.badConnections.increment();
+          localBadConnectionCount++;
+          bag.remove(entry);
+          conn = null;
+          if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+            if (log.isDebugEnabled()) {
+              log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+            }
+            throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+          }
+        }
+      }
+    }
+
+    if (conn == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+      throw new SQLException("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    return conn;
+  }
+
+  private ConnectionBag.Entry claimOverdueConnection() throws SQLException {
+    ConnectionBag.Entry oldestEntry = null;
+    long longestCheckoutTime = 0;
+    for (ConnectionBag.Entry entry : bag.entries()) {
+      PooledConnection conn = entry.getConnection();
+      // a zero timestamp means the connection is being checked out right now
+      if (entry.getState() == ConnectionBag.STATE_IN_USE && conn.getCheckoutTimestamp() > 0
+          && conn.getCheckoutTime() > longestCheckoutTime) {
+        oldestEntry = entry;
+        longestCheckoutTime = conn.getCheckoutTime();
+      }
+    }
+    if (oldestEntry == null || longestCheckoutTime <= poolMaximumCheckoutTime
+        || !oldestEntry.compareAndSetState(ConnectionBag.STATE_IN_USE, ConnectionBag.STATE_RESERVED)) {
+      return null;
+    }
+    // Can claim overdue connection
+    PooledConnection oldestActiveConnection = oldestEntry.getConnection();
+    state.claimedOverdueConnections.increment();
+    state.accumulatedCheckoutTimesOfOverdueConnections.add(longestCheckoutTime);
+    state.accumulatedCheckoutTimes.add(longestCheckoutTime);
+    try {
+      if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+        try {
+          oldestActiveConnection.getRealConnection().rollback();
+        } catch (SQLException e) {
+          // see PooledDataSource: the new wrapper is validated by the caller
+          log.debug("Bad connection. Could not roll back");
+        }
+      }
+    } catch (SQLException e) {
+      bag.remove(oldestEntry);
+      oldestActiveConnection.invalidate();
+      throw e;
+    }
+    PooledConnection conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+    conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+    oldestActiveConnection.moveStatementCacheTo(conn);
+    oldestEntry.setConnection(conn);
+    oldestActiveConnection.invalidate();
+    if (!oldestEntry.compareAndSetState(ConnectionBag.STATE_RESERVED, ConnectionBag.STATE_IN_USE)) {
+      // removed by forceCloseAll() in the meantime
+      return null;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return oldestEntry;
+  }
+
+}
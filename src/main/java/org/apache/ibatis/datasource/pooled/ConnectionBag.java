@@ -0,0 +1,282 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free container of pooled connections used by {@link ConcurrentPooledDataSource}.
+ * <p>
+ * Every connection lives in a shared copy-on-write list and is claimed by a CAS on its state. A thread first looks at
+ * the connections it returned itself (thread affinity), then scans the shared list, and finally waits on a hand-off
+ * queue that returning threads feed directly while there are waiters.
+ */
+class ConnectionBag {
+
+  static final int STATE_REMOVED = -1;
+  static final int STATE_NOT_IN_USE = 0;
+  static final int STATE_IN_USE = 1;
+  static final int STATE_RESERVED = 2;
+
+  private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+  private final CopyOnWriteArrayList<Entry> sharedList = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<List<WeakReference<Entry>>> threadList = ThreadLocal.withInitial(ArrayList::new);
+  private final SynchronousQueue<Entry> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicInteger totalCount = new AtomicInteger();
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  /**
+   * Claims an idle connection without blocking.
+   *
+   * @return the claimed entry (now in use), or <code>null</code> if there is no idle connection
+   */
+  Entry borrow() {
+    List<WeakReference<Entry>> list = threadList.get();
+    for (int i = list.size() - 1; i >= 0; i--) {
+      Entry entry = list.remove(i).get();
+      if (entry != null && claim(entry)) {
+        return entry;
+      }
+    }
+    return scan();
+  }
+
+  /**
+   * Waits for a connection to be handed off by a returning thread.
+   *
+   * @param timeout
+   *          the time to wait
+   * @param unit
+   *          the unit of the timeout
+   * @return the claimed entry, or <code>null</code> if the wait timed out or the caller was woken up to retry
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  Entry poll(long timeout, TimeUnit unit) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      // an entry may have been returned while no one was registered as a waiter
+      Entry entry = scan();
+      if (entry != null) {
+        return entry;
+      }
+      entry = handoffQueue.poll(timeout, unit);
+      return entry != null && claim(entry) ? entry : null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Makes an entry reserved by the caller available again. The caller must have obtained an idle slot with
+   * {@link #reserveIdle(int)}.
+   *
+   * @param entry
+   *          the entry to return
+   * @return false if the entry has been removed from the bag in the meantime
+   */
+  boolean requite(Entry entry) {
+    if (!entry.state.compareAndSet(STATE_RESERVED, STATE_NOT_IN_USE)) {
+      idleCount.decrementAndGet();
+      return false;
+    }
+    for (int i = 0; waiters.get() > 0; i++) {
+      if (entry.state.get() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+        return true;
+      } else if ((i & 0xff) == 0xff) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+      } else {
+        Thread.yield();
+      }
+    }
+    List<WeakReference<Entry>> list = threadList.get();
+    if (list.size() < MAX_THREAD_LOCAL_ENTRIES) {
+      list.add(new WeakReference<>(entry));
+    }
+    return true;
+  }
+
+  /**
+   * Reserves room for a new connection if the bag holds fewer than <code>maximum</code> connections.
+   *
+   * @param maximum
+   *          the maximum number of connections
+   * @return true if the caller may create a connection and {@link #add(PooledConnection)} it
+   */
+  boolean reserve(int maximum) {
+    for (;;) {
+      int current = totalCount.get();
+      if (current >= maximum) {
+        return false;
+      }
+      if (totalCount.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases room obtained with {@link #reserve(int)} when the connection could not be created.
+   */
+  void unreserve() {
+    totalCount.decrementAndGet();
+    wakeUpWaiter(null);
+  }
+
+  /**
+   * Reserves an idle slot if fewer than <code>maximum</code> connections are idle.
+   *
+   * @param maximum
+   *          the maximum number of idle connections
+   * @return true if the caller may {@link #requite(Entry)} an entry
+   */
+  boolean reserveIdle(int maximum) {
+    for (;;) {
+      int current = idleCount.get();
+      if (current >= maximum) {
+        return false;
+      }
+      if (idleCount.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Adds a newly created connection in use by the caller.
+   *
+   * @param connection
+   *          the new connection
+   * @return the entry holding the connection
+   */
+  Entry add(PooledConnection connection) {
+    Entry entry = new Entry(connection);
+    sharedList.add(entry);
+    return entry;
+  }
+
+  /**
+   * Removes an entry owned by the caller (in use or reserved) from the bag.
+   *
+   * @param entry
+   *          the entry to remove
+   */
+  void remove(Entry entry) {
+    int previous = entry.state.getAndSet(STATE_REMOVED);
+    if (previous == STATE_REMOVED) {
+      return;
+    }
+    if (previous == STATE_NOT_IN_USE) {
+      idleCount.decrementAndGet();
+    }
+    if (sharedList.remove(entry)) {
+      totalCount.decrementAndGet();
+    }
+    wakeUpWaiter(entry);
+  }
+
+  /**
+   * Finds the entry currently lending the given connection.
+   *
+   * @param connection
+   *          the connection
+   * @return the entry, or <code>null</code> if the connection is no longer part of the bag
+   */
+  Entry find(PooledConnection connection) {
+    for (Entry entry : sharedList) {
+      if (entry.connection == connection) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  List<Entry> entries() {
+    return sharedList;
+  }
+
+  int getIdleCount() {
+    return idleCount.get();
+  }
+
+  int getActiveCount() {
+    return Math.max(0, totalCount.get() - idleCount.get());
+  }
+
+  private Entry scan() {
+    for (Entry entry : sharedList) {
+      if (claim(entry)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private boolean claim(Entry entry) {
+    if (entry.state.compareAndSet(STATE_NOT_IN_USE, STATE_IN_USE)) {
+      idleCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private void wakeUpWaiter(Entry entry) {
+    // capacity became available, let a waiting thread retry (the entry cannot be claimed)
+    if (waiters.get() > 0) {
+      handoffQueue.offer(entry == null ? new Entry(null, STATE_REMOVED) : entry);
+    }
+  }
+
+  static class Entry {
+    private final AtomicInteger state;
+    private volatile PooledConnection connection;
+
+    Entry(PooledConnection connection) {
+      this(connection, STATE_IN_USE);
+    }
+
+    private Entry(PooledConnection connection, int state) {
+      this.connection = connection;
+      this.state = new AtomicInteger(state);
+    }
+
+    PooledConnection getConnection() {
+      return connection;
+    }
+
+    void setConnection(PooledConnection connection) {
+      this.connection = connection;
+    }
+
+    int getState() {
+      return state.get();
+    }
+
+    boolean compareAndSetState(int expect, int update) {
+      return state.compareAndSet(expect, update);
+    }
+  }
+
+}
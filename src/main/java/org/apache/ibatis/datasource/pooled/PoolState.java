@@ -17,6 +17,9 @@ package org.apache.ibatis.datasource.pooled;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Clinton Begin
@@ -25,6 +28,9 @@ public class PoolState {
 
   protected PooledDataSource dataSource;
 
+  // guards the connection lists and counters, shared with the owning data source
+  final Lock lock = new ReentrantLock();
+
   protected final List<PooledConnection> idleConnections = new ArrayList<>();
   protected final List<PooledConnection> activeConnections = new ArrayList<>();
   protected long requestCount = 0;
@@ -35,80 +41,162 @@ public class PoolState {
   protected long accumulatedWaitTime = 0;
   protected long hadToWaitCount = 0;
   protected long badConnectionCount = 0;
+  // updated by the connections outside of the lock
+  protected final LongAdder preparedStatementCacheHits = new LongAdder();
+  protected final LongAdder preparedStatementCacheMisses = new LongAdder();
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
   }
 
-  public synchronized long getRequestCount() {
-    return requestCount;
+  public long getRequestCount() {
+    lock.lock();
+    try {
+      return requestCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getAverageRequestTime() {
+    lock.lock();
+    try {
+      return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getAverageRequestTime() {
-    return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+  public long getAverageWaitTime() {
+    lock.lock();
+    try {
+      return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getAverageWaitTime() {
-    return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+  public long getHadToWaitCount() {
+    lock.lock();
+    try {
+      return hadToWaitCount;
+    } finally {
+      lock.unlock();
+    }
+  }
 
+  public long getBadConnectionCount() {
+    lock.lock();
+    try {
+      return badConnectionCount;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getHadToWaitCount() {
-    return hadToWaitCount;
+  public long getClaimedOverdueConnectionCount() {
+    lock.lock();
+    try {
+      return claimedOverdueConnectionCount;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getBadConnectionCount() {
-    return badConnectionCount;
+  public long getAverageOverdueCheckoutTime() {
+    lock.lock();
+    try {
+      return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getClaimedOverdueConnectionCount() {
-    return claimedOverdueConnectionCount;
+  public long getAverageCheckoutTime() {
+    lock.lock();
+    try {
+      return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getAverageOverdueCheckoutTime() {
-    return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+  public int getIdleConnectionCount() {
+    lock.lock();
+    try {
+      return idleConnections.size();
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized long getAverageCheckoutTime() {
-    return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+  public int getActiveConnectionCount() {
+    lock.lock();
+    try {
+      return activeConnections.size();
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized int getIdleConnectionCount() {
-    return idleConnections.size();
+  /**
+   * Gets the number of statements prepared through pooled connections that were taken from the prepared statement
+   * cache.
+   *
+   * @return the number of cache hits
+   * @since 3.5.7
+   */
+  public long getPreparedStatementCacheHitCount() {
+    return preparedStatementCacheHits.sum();
   }
 
-  public synchronized int getActiveConnectionCount() {
-    return activeConnections.size();
+  /**
+   * Gets the number of statements prepared through pooled connections that were not found in the prepared statement
+   * cache.
+   *
+   * @return the number of cache misses
+   * @since 3.5.7
+   */
+  public long getPreparedStatementCacheMissCount() {
+    return preparedStatementCacheMisses.sum();
   }
 
   @Override
-  public synchronized String toString() {
-    StringBuilder builder = new StringBuilder();
-    builder.append("\n===CONFINGURATION==============================================");
-    builder.append("\n jdbcDriver                     ").append(dataSource.getDriver());
-    builder.append("\n jdbcUrl                        ").append(dataSource.getUrl());
-    builder.append("\n jdbcUsername                   ").append(dataSource.getUsername());
-    builder.append("\n jdbcPassword                   ").append(dataSource.getPassword() == null ? "NULL" : "************");
-    builder.append("\n poolMaxActiveConnections       ").append(dataSource.poolMaximumActiveConnections);
-    builder.append("\n poolMaxIdleConnections         ").append(dataSource.poolMaximumIdleConnections);
-    builder.append("\n poolMaxCheckoutTime            ").append(dataSource.poolMaximumCheckoutTime);
-    builder.append("\n poolTimeToWait                 ").append(dataSource.poolTimeToWait);
-    builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
-    builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
-    builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
-    builder.append("\n ---STATUS-----------------------------------------------------");
-    builder.append("\n activeConnections              ").append(getActiveConnectionCount());
-    builder.append("\n idleConnections                ").append(getIdleConnectionCount());
-    builder.append("\n requestCount                   ").append(getRequestCount());
-    builder.append("\n averageRequestTime             ").append(getAverageRequestTime());
-    builder.append("\n averageCheckoutTime            ").append(getAverageCheckoutTime());
-    builder.append("\n claimedOverdue                 ").append(getClaimedOverdueConnectionCount());
-    builder.append("\n averageOverdueCheckoutTime     ").append(getAverageOverdueCheckoutTime());
-    builder.append("\n hadToWait                      ").append(getHadToWaitCount());
-    builder.append("\n averageWaitTime                ").append(getAverageWaitTime());
-    builder.append("\n badConnectionCount             ").append(getBadConnectionCount());
-    builder.append("\n===============================================================");
-    return builder.toString();
+  public String toString() {
+    lock.lock();
+    try {
+      StringBuilder builder = new StringBuilder();
+      builder.append("\n===CONFINGURATION==============================================");
+      builder.append("\n jdbcDriver                     ").append(dataSource.getDriver());
+      builder.append("\n jdbcUrl                        ").append(dataSource.getUrl());
+      builder.append("\n jdbcUsername                   ").append(dataSource.getUsername());
+      builder.append("\n jdbcPassword                   ").append(dataSource.getPassword() == null ? "NULL" : "************");
+      builder.append("\n poolMaxActiveConnections       ").append(dataSource.poolMaximumActiveConnections);
+      builder.append("\n poolMaxIdleConnections         ").append(dataSource.poolMaximumIdleConnections);
+      builder.append("\n poolMaxCheckoutTime            ").append(dataSource.poolMaximumCheckoutTime);
+      builder.append("\n poolTimeToWait                 ").append(dataSource.poolTimeToWait);
+      builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
+      builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
+      builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+      builder.append("\n poolPreparedStatementCacheSize ").append(dataSource.poolPreparedStatementCacheSize);
+      builder.append("\n ---STATUS-----------------------------------------------------");
+      builder.append("\n activeConnections              ").append(getActiveConnectionCount());
+      builder.append("\n idleConnections                ").append(getIdleConnectionCount());
+      builder.append("\n requestCount                   ").append(getRequestCount());
+      builder.append("\n averageRequestTime             ").append(getAverageRequestTime());
+      builder.append("\n averageCheckoutTime            ").append(getAverageCheckoutTime());
+      builder.append("\n claimedOverdue                 ").append(getClaimedOverdueConnectionCount());
+      builder.append("\n averageOverdueCheckoutTime     ").append(getAverageOverdueCheckoutTime());
+      builder.append("\n hadToWait                      ").append(getHadToWaitCount());
+      builder.append("\n averageWaitTime                ").append(getAverageWaitTime());
+      builder.append("\n badConnectionCount             ").append(getBadConnectionCount());
+      builder.append("\n statementCacheHits             ").append(getPreparedStatementCacheHitCount());
+      builder.append("\n statementCacheMisses           ").append(getPreparedStatementCacheMissCount());
+      builder.append("\n===============================================================");
+      return builder.toString();
+    } finally {
+      lock.unlock();
+    }
   }
 
 }
@@ -29,6 +29,7 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
   private final int hashCode;
@@ -40,6 +41,7 @@ class PooledConnection implements InvocationHandler {
   private long lastUsedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private PreparedStatementCache statementCache;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -60,10 +62,14 @@ class PooledConnection implements InvocationHandler {
   }
 
   /**
-   * Invalidates the connection.
+   * Invalidates the connection, closing the prepared statements cached for it.
    */
   public void invalidate() {
     valid = false;
+    if (statementCache != null) {
+      statementCache.clear();
+      statementCache = null;
+    }
   }
 
   /**
@@ -93,6 +99,21 @@ class PooledConnection implements InvocationHandler {
     return proxyConnection;
   }
 
+  PreparedStatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  /**
+   * Hands the prepared statements cached for the real connection over to the connection that wraps it next.
+   *
+   * @param next
+   *          the new pooled connection of the real connection
+   */
+  void moveStatementCacheTo(PooledConnection next) {
+    next.statementCache = statementCache;
+    statementCache = null;
+  }
+
   /**
    * Gets the hashcode of the real connection (or 0 if it is null).
    *
@@ -252,6 +273,12 @@ class PooledConnection implements InvocationHandler {
         // throw an SQLException instead of a Runtime
         checkConnection();
       }
+      if (PREPARE_STATEMENT.equals(methodName) && dataSource.poolPreparedStatementCacheSize > 0) {
+        if (statementCache == null) {
+          statementCache = new PreparedStatementCache(dataSource.poolPreparedStatementCacheSize, dataSource.getPoolState());
+        }
+        return statementCache.prepareStatement(this, method, args);
+      }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
       throw ExceptionUtil.unwrapThrowable(t);
@@ -0,0 +1,237 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A bounded LRU cache of the prepared statements of a real connection, handed over from one {@link PooledConnection}
+ * to the next one wrapping the same connection so that statements survive the sessions using it.
+ * <p>
+ * A cached statement is taken out of the cache while it is in use and put back when it is closed, after its
+ * parameters, pending batch and the properties changed while it was in use have been reset. Statements returned
+ * through a connection that has been given back to the pool in the meantime are closed for real.
+ */
+class PreparedStatementCache {
+
+  private static final Class<?>[] IFACES = new Class<?>[] { PreparedStatement.class };
+
+  private final PoolState state;
+  private final Map<Key, PreparedStatement> statements;
+
+  PreparedStatementCache(int size, PoolState state) {
+    this.state = state;
+    this.statements = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+        if (size() > size) {
+          closeQuietly(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets a cached statement, or prepares one, for a call to one of the <code>prepareStatement</code> methods.
+   *
+   * @param connection
+   *          the pooled connection the statement is prepared through
+   * @param method
+   *          the <code>prepareStatement</code> method
+   * @param args
+   *          the arguments of the method
+   * @return a statement that goes back to the cache when it is closed
+   * @throws Throwable
+   *           if the statement could not be prepared
+   */
+  PreparedStatement prepareStatement(PooledConnection connection, Method method, Object[] args) throws Throwable {
+    Key key = new Key(args);
+    PreparedStatement statement;
+    synchronized (this) {
+      statement = statements.remove(key);
+    }
+    if (statement != null && !statement.isClosed()) {
+      state.preparedStatementCacheHits.increment();
+    } else {
+      state.preparedStatementCacheMisses.increment();
+      statement = (PreparedStatement) method.invoke(connection.getRealConnection(), args);
+    }
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES,
+        new CachedStatement(connection, key, statement));
+  }
+
+  /**
+   * Closes the cached statements. Statements in use are closed when they are given back.
+   */
+  synchronized void clear() {
+    for (PreparedStatement statement : statements.values()) {
+      closeQuietly(statement);
+    }
+    statements.clear();
+  }
+
+  private void release(PooledConnection connection, Key key, PreparedStatement statement) {
+    synchronized (this) {
+      if (connection.getStatementCache() == this) {
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null) {
+          closeQuietly(previous);
+        }
+        return;
+      }
+    }
+    closeQuietly(statement);
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  private static final class Key {
+    private final Object[] args;
+    private final int hashCode;
+
+    Key(Object[] args) {
+      this.args = args;
+      this.hashCode = Arrays.deepHashCode(args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.deepEquals(args, ((Key) obj).args);
+    }
+  }
+
+  private final class CachedStatement implements InvocationHandler {
+    private final PooledConnection connection;
+    private final Key key;
+    private final PreparedStatement statement;
+    // the values the properties set while in use had before, by setter
+    private Map<Method, Object> changedProperties;
+    private boolean batched;
+    private boolean reusable = true;
+    private boolean closed;
+
+    CachedStatement(PooledConnection connection, Key key, PreparedStatement statement) {
+      this.connection = connection;
+      this.key = key;
+      this.statement = statement;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+      try {
+        if (Object.class.equals(method.getDeclaringClass())) {
+          return method.invoke(statement, args);
+        } else if ("close".equals(methodName)) {
+          if (!closed) {
+            closed = true;
+            close();
+          }
+          return null;
+        } else if ("isClosed".equals(methodName)) {
+          return closed || statement.isClosed();
+        } else if (closed) {
+          throw new SQLException("Error accessing PooledConnection statement. Statement is closed.");
+        } else if ("getConnection".equals(methodName)) {
+          return connection.getProxyConnection();
+        } else if ("closeOnCompletion".equals(methodName)) {
+          // the driver closes the statement with its result set
+          reusable = false;
+        } else if ("addBatch".equals(methodName)) {
+          batched = true;
+        } else if (methodName.startsWith("set") && args != null && args.length == 1) {
+          rememberProperty(method);
+        }
+        return method.invoke(statement, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+
+    private void rememberProperty(Method setter) throws Exception {
+      if (changedProperties == null) {
+        changedProperties = new HashMap<>();
+      } else if (changedProperties.containsKey(setter)) {
+        return;
+      }
+      String property = setter.getName().substring(3);
+      Method getter = findGetter(setter.getParameterTypes()[0] == boolean.class ? "is" + property : "get" + property);
+      if (getter == null) {
+        // e.g. setCursorName, the property cannot be reset
+        reusable = false;
+        return;
+      }
+      changedProperties.put(setter, getter.invoke(statement));
+    }
+
+    private Method findGetter(String name) {
+      try {
+        return PreparedStatement.class.getMethod(name);
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+
+    private void close() throws SQLException {
+      if (reusable && !statement.isClosed()) {
+        try {
+          if (batched) {
+            statement.clearBatch();
+          }
+          statement.clearParameters();
+          if (changedProperties != null) {
+            for (Map.Entry<Method, Object> property : changedProperties.entrySet()) {
+              property.getKey().invoke(statement, property.getValue());
+            }
+          }
+          statement.clearWarnings();
+        } catch (Exception e) {
+          closeQuietly(statement);
+          return;
+        }
+        release(connection, key, statement);
+      } else {
+        statement.close();
+      }
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -34,6 +35,7 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
@@ -132,7 +134,7 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
-    CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
+    CacheKey key = isCacheKeyRequired(ms) ? createCacheKey(ms, parameter, rowBounds, boundSql) : CacheKey.NULL_CACHE_KEY;
     return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
   }
 
@@ -149,7 +151,7 @@ public abstract class BaseExecutor implements Executor {
     List<E> list;
     try {
       queryStack++;
-      list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;
+      list = resultHandler == null && key != CacheKey.NULL_CACHE_KEY ? (List<E>) localCache.getObject(key) : null;
       if (list != null) {
         handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
       } else {
@@ -175,6 +177,9 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    if (boundSql.getPartitions() != null) {
+      throw new ExecutorException(splitNotSupported(ms, "by a cursor"));
+    }
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -196,15 +201,32 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    CacheKey cacheKey = new CacheKey(parameterMappings.size() + 5);
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
+    List<BoundSql> partitions = boundSql.getPartitions();
+    if (partitions == null) {
+      updateCacheKey(cacheKey, ms, parameterObject, boundSql);
+    } else {
+      // the partitions together stand for the whole statement
+      for (BoundSql partition : partitions) {
+        updateCacheKey(cacheKey, ms, parameterObject, partition);
+      }
+    }
+    if (configuration.getEnvironment() != null) {
+      // issue #176
+      cacheKey.update(configuration.getEnvironment().getId());
+    }
+    return cacheKey;
+  }
+
+  private void updateCacheKey(CacheKey cacheKey, MappedStatement ms, Object parameterObject, BoundSql boundSql) {
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
-    for (ParameterMapping parameterMapping : parameterMappings) {
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
       if (parameterMapping.getMode() != ParameterMode.OUT) {
         Object value;
         String propertyName = parameterMapping.getProperty();
@@ -221,11 +243,25 @@ public abstract class BaseExecutor implements Executor {
         cacheKey.update(value);
       }
     }
-    if (configuration.getEnvironment() != null) {
-      // issue #176
-      cacheKey.update(configuration.getEnvironment().getId());
+  }
+
+  /**
+   * Returns whether the local cache may be looked up with the key of a query, which otherwise is not built.
+   * <p>
+   * With the <code>STATEMENT</code> local cache scope, the result of a top level query is only reused by the nested
+   * queries it triggers and by callable statements' output parameters.
+   */
+  private boolean isCacheKeyRequired(MappedStatement ms) {
+    if (queryStack > 0 || configuration.getLocalCacheScope() != LocalCacheScope.STATEMENT
+        || ms.getStatementType() == StatementType.CALLABLE || ms.hasNestedResultMaps()) {
+      return true;
     }
-    return cacheKey;
+    for (ResultMap resultMap : ms.getResultMaps()) {
+      if (resultMap.hasNestedQueries() || resultMap.getDiscriminator() != null) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -319,10 +355,13 @@ public abstract class BaseExecutor implements Executor {
   }
 
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+    if (key == CacheKey.NULL_CACHE_KEY) {
+      return doQueryPartitions(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
     List<E> list;
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
     try {
-      list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      list = doQueryPartitions(ms, parameter, rowBounds, resultHandler, boundSql);
     } finally {
       localCache.removeObject(key);
     }
@@ -333,6 +372,31 @@ public abstract class BaseExecutor implements Executor {
     return list;
   }
 
+  private <E> List<E> doQueryPartitions(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+    List<BoundSql> partitions = boundSql.getPartitions();
+    if (partitions == null) {
+      return doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+    // row bounds and output parameters apply to a single execution
+    if (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+      throw new ExecutorException(splitNotSupported(ms, "with RowBounds"));
+    }
+    if (ms.getStatementType() == StatementType.CALLABLE) {
+      throw new ExecutorException(splitNotSupported(ms, "by a callable statement"));
+    }
+    List<E> list = new ArrayList<>();
+    for (BoundSql partition : partitions) {
+      List<E> partitionList = doQuery(ms, parameter, rowBounds, resultHandler, partition);
+      list.addAll(partitionList);
+    }
+    return list;
+  }
+
+  private static String splitNotSupported(MappedStatement ms, String usage) {
+    return "The statement '" + ms.getId() + "' renders a foreach with more elements than its splitSize, which cannot"
+        + " be run in several executions " + usage + ". Lower the number of elements or remove the splitSize.";
+  }
+
   protected Connection getConnection(Log statementLog) throws SQLException {
     Connection connection = transaction.getConnection();
     if (statementLog.isDebugEnabled()) {
@@ -15,21 +15,34 @@
  */
 package org.apache.ibatis.executor;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -46,6 +59,17 @@ public class BatchExecutor extends BaseExecutor {
   private final List<BatchResult> batchResultList = new ArrayList<>();
   private String currentSql;
   private MappedStatement currentStatement;
+  // batches of plain inserts that later rows of the same insert can still be added to, by SQL
+  private final Map<String, Integer> groupableBatches = new HashMap<>();
+
+  // rows of an insert statement waiting to be combined into a multi-row insert
+  private final List<RecordedParameters> pendingInsertRows = new ArrayList<>();
+  private final List<Object> pendingInsertParameters = new ArrayList<>();
+  private StatementHandler pendingInsertHandler;
+  private MultiRowInsertSql pendingInsertSql;
+  private MappedStatement pendingInsertStatement;
+  // inserts whose SQL cannot be combined or whose parameters cannot be recorded, by statement
+  private final Map<MappedStatement, Set<String>> singleRowInserts = new HashMap<>();
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -57,22 +81,36 @@ public class BatchExecutor extends BaseExecutor {
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
+    if (isMultiRowInsert(ms) && !isSingleRowInsert(ms, sql)) {
+      if (pendingInsertSql == null || !sql.equals(pendingInsertSql.getSql()) || !ms.equals(pendingInsertStatement)) {
+        flushPendingInsert();
+        pendingInsertSql = MultiRowInsertSql.parse(sql, boundSql.getParameterMappings().size());
+        pendingInsertStatement = ms;
+      }
+      if (pendingInsertSql != null && addPendingInsertRow(ms, handler, parameterObject)) {
+        if (pendingInsertRows.size() >= configuration.getMultiRowInsertSize()) {
+          flushPendingInsert();
+        }
+        return BATCH_UPDATE_RETURN_VALUE;
+      }
+      singleRowInserts.computeIfAbsent(ms, k -> new HashSet<>()).add(sql);
+    }
+    flushPendingInsert();
     final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
+    final int index = findBatch(ms, sql);
+    if (index >= 0) {
+      stmt = statementList.get(index);
       applyTransactionTimeout(stmt);
       handler.parameterize(stmt);// fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+      BatchResult batchResult = batchResultList.get(index);
       batchResult.addParameterObject(parameterObject);
     } else {
       Connection connection = getConnection(ms.getStatementLog());
       stmt = handler.prepare(connection, transaction.getTimeout());
       handler.parameterize(stmt);    // fix Issues 322
-      currentSql = sql;
-      currentStatement = ms;
-      statementList.add(stmt);
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      final MultiRowInsertSql insertSql = isGroupable(ms)
+          ? MultiRowInsertSql.parse(sql, boundSql.getParameterMappings().size()) : null;
+      addBatch(ms, sql, stmt, new BatchResult(ms, sql, parameterObject), insertSql);
     }
     handler.batch(stmt);
     return BATCH_UPDATE_RETURN_VALUE;
@@ -115,6 +153,7 @@ public class BatchExecutor extends BaseExecutor {
       if (isRollback) {
         return Collections.emptyList();
       }
+      flushPendingInsert();
       for (int i = 0, n = statementList.size(); i < n; i++) {
         Statement stmt = statementList.get(i);
         applyTransactionTimeout(stmt);
@@ -152,13 +191,220 @@ public class BatchExecutor extends BaseExecutor {
       }
       return results;
     } finally {
+      clearPendingInsert();
       for (Statement stmt : statementList) {
         closeStatement(stmt);
       }
       currentSql = null;
+      groupableBatches.clear();
+      singleRowInserts.clear();
       statementList.clear();
       batchResultList.clear();
     }
   }
 
+  private boolean isMultiRowInsert(MappedStatement ms) {
+    final Integer multiRowInsertSize = configuration.getMultiRowInsertSize();
+    if (multiRowInsertSize == null || multiRowInsertSize < 2
+        || ms.getSqlCommandType() != SqlCommandType.INSERT || ms.getStatementType() != StatementType.PREPARED) {
+      return false;
+    }
+    // keys selected by a statement cannot be told apart once the rows are inserted at once
+    final Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    return NoKeyGenerator.class.equals(keyGeneratorType) || Jdbc3KeyGenerator.class.equals(keyGeneratorType);
+  }
+
+  private boolean isSingleRowInsert(MappedStatement ms, String sql) {
+    final Set<String> sqls = singleRowInserts.get(ms);
+    return sqls != null && sqls.contains(sql);
+  }
+
+  private boolean addPendingInsertRow(MappedStatement ms, StatementHandler handler, Object parameterObject) throws SQLException {
+    // the values are set now, as the caller may change the parameter object before the rows are flushed
+    final RecordedParameters row = new RecordedParameters(ms.getStatementLog(), handler.getBoundSql().getParameterMappings().size());
+    try {
+      handler.parameterize(row.getStatement());
+    } catch (RuntimeException e) {
+      if (!isUnsupportedCall(e)) {
+        throw e;
+      }
+    }
+    if (row.isUnsupported()) {
+      // the row is set on a prepared statement of its own instead
+      return false;
+    }
+    if (pendingInsertHandler == null) {
+      pendingInsertHandler = handler;
+    }
+    pendingInsertRows.add(row);
+    pendingInsertParameters.add(parameterObject);
+    return true;
+  }
+
+  private static boolean isUnsupportedCall(Throwable e) {
+    // type handlers may wrap the exception thrown by the recorded statement
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof UnsupportedCallException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int findBatch(MappedStatement ms, String sql) {
+    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+      return statementList.size() - 1;
+    }
+    Integer index = groupableBatches.get(sql);
+    if (index != null && ms.equals(batchResultList.get(index).getMappedStatement())) {
+      return index;
+    }
+    return -1;
+  }
+
+  private void addBatch(MappedStatement ms, String sql, Statement stmt, BatchResult batchResult, MultiRowInsertSql insertSql) {
+    // an insert that does not read any table can run before the inserts that followed it
+    if (insertSql != null && !insertSql.hasQuery()) {
+      groupableBatches.put(sql, statementList.size());
+    } else {
+      // rows added to an earlier batch would move ahead of this statement
+      groupableBatches.clear();
+    }
+    currentSql = sql;
+    currentStatement = ms;
+    statementList.add(stmt);
+    batchResultList.add(batchResult);
+  }
+
+  private boolean isGroupable(MappedStatement ms) {
+    return configuration.isGroupBatchedInserts() && ms.getSqlCommandType() == SqlCommandType.INSERT
+        && ms.getStatementType() != StatementType.CALLABLE && !(ms.getKeyGenerator() instanceof SelectKeyGenerator);
+  }
+
+  private void flushPendingInsert() throws SQLException {
+    if (pendingInsertRows.isEmpty()) {
+      clearPendingInsert();
+      return;
+    }
+    try {
+      final MappedStatement ms = pendingInsertStatement;
+      final String sql = pendingInsertSql.build(pendingInsertRows.size());
+      final Statement stmt;
+      final BatchResult batchResult;
+      final int index = findBatch(ms, sql);
+      if (index >= 0) {
+        stmt = statementList.get(index);
+        applyTransactionTimeout(stmt);
+        batchResult = batchResultList.get(index);
+      } else {
+        // the parameters have been recorded for each row
+        final BoundSql boundSql = new BoundSql(configuration, sql, Collections.emptyList(), pendingInsertParameters.get(0));
+        final StatementHandler handler = configuration.newStatementHandler(this, ms, boundSql.getParameterObject(), RowBounds.DEFAULT, null, boundSql);
+        final Connection connection = getConnection(ms.getStatementLog());
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        batchResult = new BatchResult(ms, sql);
+        addBatch(ms, sql, stmt, batchResult, isGroupable(ms) ? pendingInsertSql : null);
+      }
+      int offset = 0;
+      for (int i = 0, n = pendingInsertRows.size(); i < n; i++) {
+        final RecordedParameters row = pendingInsertRows.get(i);
+        row.replay((PreparedStatement) stmt, offset);
+        offset += row.parameterCount;
+        batchResult.addParameterObject(pendingInsertParameters.get(i));
+      }
+      pendingInsertHandler.batch(stmt);
+    } finally {
+      clearPendingInsert();
+    }
+  }
+
+  private void clearPendingInsert() {
+    pendingInsertRows.clear();
+    pendingInsertParameters.clear();
+    pendingInsertHandler = null;
+    pendingInsertSql = null;
+    pendingInsertStatement = null;
+  }
+
+  /**
+   * The parameters a statement handler sets for one row of a multi-row insert, replayed when the rows are flushed. Any
+   * other use of the statement marks the row as unsupported, and it is then batched on its own.
+   */
+  private class RecordedParameters implements InvocationHandler {
+    private final Log statementLog;
+    private final int parameterCount;
+    private final List<Method> setters = new ArrayList<>();
+    private final List<Object[]> arguments = new ArrayList<>();
+    private boolean unsupported;
+
+    RecordedParameters(Log statementLog, int parameterCount) {
+      this.statementLog = statementLog;
+      this.parameterCount = parameterCount;
+    }
+
+    boolean isUnsupported() {
+      return unsupported;
+    }
+
+    PreparedStatement getStatement() {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class }, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (Object.class.equals(method.getDeclaringClass())) {
+        switch (method.getName()) {
+          case "equals":
+            return proxy == args[0];
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          default:
+            return "Parameters of a row of a multi-row insert";
+        }
+      }
+      // every parameter setter takes the parameter index first
+      if (args != null && args.length > 1 && method.getName().startsWith("set")
+          && method.getParameterTypes()[0] == int.class) {
+        setters.add(method);
+        arguments.add(args.clone());
+        return null;
+      } else if ("getConnection".equals(method.getName()) && args == null) {
+        // type handlers create arrays and LOBs through the connection
+        return BatchExecutor.this.getConnection(statementLog);
+      }
+      // the row is marked even if a type handler swallows the exception
+      unsupported = true;
+      throw new UnsupportedCallException(method.getName());
+    }
+
+    void replay(PreparedStatement ps, int offset) throws SQLException {
+      for (int i = 0, n = setters.size(); i < n; i++) {
+        final Object[] args = arguments.get(i).clone();
+        args[0] = (Integer) args[0] + offset;
+        try {
+          setters.get(i).invoke(ps, args);
+        } catch (Exception e) {
+          Throwable cause = ExceptionUtil.unwrapThrowable(e);
+          if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+          }
+          throw new ExecutorException("Could not set the parameters of a multi-row insert.", cause);
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops a statement handler that calls a method of a recorded row other than a parameter setter.
+   */
+  private static class UnsupportedCallException extends RuntimeException {
+    private static final long serialVersionUID = -3176451254218790262L;
+
+    UnsupportedCallException(String methodName) {
+      super("Method " + methodName + " cannot be called while setting the parameters of a row of a multi-row insert.",
+          null, false, false);
+    }
+  }
+
 }
@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+/**
+ * The SQL of an <code>INSERT ... VALUES (...)</code> statement split around its row of values, so that the row can be
+ * repeated to insert many rows with one statement.
+ */
+final class MultiRowInsertSql {
+
+  private final String sql;
+  private final String head;
+  private final String values;
+  private final String tail;
+  private final boolean query;
+  private int lastRows;
+  private String lastSql;
+
+  private MultiRowInsertSql(String sql, String head, String values, String tail, boolean query) {
+    this.sql = sql;
+    this.head = head;
+    this.values = values;
+    this.tail = tail;
+    this.query = query;
+  }
+
+  /**
+   * Splits an insert statement around its row of values.
+   *
+   * @param sql
+   *          the SQL of the insert statement
+   * @param parameterCount
+   *          the number of parameters of the statement
+   * @return the split statement, or <code>null</code> unless the statement has a single row of values holding all of
+   *         its parameters
+   */
+  static MultiRowInsertSql parse(String sql, int parameterCount) {
+    int valuesStart = -1;
+    int valuesEnd = -1;
+    int depth = 0;
+    int parameters = 0;
+    boolean query = false;
+    int length = sql.length();
+    for (int i = 0; i < length; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        int end = sql.indexOf(c, i + 1);
+        if (end < 0) {
+          return null;
+        }
+        i = end;
+      } else if (c == '?') {
+        if (valuesStart < 0 || valuesEnd >= 0) {
+          // a parameter outside of the row of values
+          return null;
+        }
+        parameters++;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+        if (depth == 0 && valuesStart >= 0 && valuesEnd < 0) {
+          valuesEnd = i + 1;
+        }
+      } else if (isKeyword(sql, i, "select")) {
+        query = true;
+        i += 5;
+      } else if (depth == 0 && valuesStart < 0 && isKeyword(sql, i, "values")) {
+        int open = skipWhitespace(sql, i + 6);
+        if (open >= length || sql.charAt(open) != '(') {
+          return null;
+        }
+        valuesStart = open;
+        i = open - 1;
+      } else if (depth == 0 && valuesEnd >= 0 && c == ',') {
+        // already a multi-row insert
+        return null;
+      }
+    }
+    if (valuesEnd < 0 || parameters != parameterCount) {
+      return null;
+    }
+    return new MultiRowInsertSql(sql, sql.substring(0, valuesStart), sql.substring(valuesStart, valuesEnd),
+        sql.substring(valuesEnd), query);
+  }
+
+  String getSql() {
+    return sql;
+  }
+
+  /**
+   * Tells whether the statement holds a query, e.g. a sub-select among the values, outside of its quoted literals and
+   * identifiers.
+   *
+   * @return <code>true</code> if the statement may read a table
+   */
+  boolean hasQuery() {
+    return query;
+  }
+
+  /**
+   * Builds the SQL inserting the given number of rows.
+   *
+   * @param rows
+   *          the number of rows
+   * @return the SQL
+   */
+  String build(int rows) {
+    if (rows == 1) {
+      return sql;
+    }
+    if (rows != lastRows) {
+      StringBuilder builder = new StringBuilder(head.length() + (values.length() + 1) * rows + tail.length());
+      builder.append(head).append(values);
+      for (int i = 1; i < rows; i++) {
+        builder.append(',').append(values);
+      }
+      lastSql = builder.append(tail).toString();
+      lastRows = rows;
+    }
+    return lastSql;
+  }
+
+  private static boolean isKeyword(String sql, int index, String keyword) {
+    final int end = index + keyword.length();
+    return sql.regionMatches(true, index, keyword, 0, keyword.length())
+        && (index == 0 || !isIdentifierPart(sql.charAt(index - 1)))
+        && (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+  }
+
+  private static int skipWhitespace(String sql, int index) {
+    while (index < sql.length() && Character.isWhitespace(sql.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+}
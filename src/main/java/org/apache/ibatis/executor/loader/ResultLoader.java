@@ -73,11 +73,37 @@ public class ResultLoader {
   }
 
   private <E> List<E> selectList() throws SQLException {
+    return selectList(parameterObject, cacheKey, boundSql);
+  }
+
+  /**
+   * Runs the statement of this loader with another parameter, on the executor this loader would use.
+   *
+   * @param <E>
+   *          the element type
+   * @param parameterObject
+   *          the parameter object
+   * @param cacheKey
+   *          the cache key, or <code>null</code> to create it
+   * @param boundSql
+   *          the bound sql, or <code>null</code> to create it
+   * @return the rows
+   * @throws SQLException
+   *           if the statement fails
+   * @since 3.5.7
+   */
+  protected <E> List<E> selectList(Object parameterObject, CacheKey cacheKey, BoundSql boundSql) throws SQLException {
     Executor localExecutor = executor;
     if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
       localExecutor = newExecutor();
     }
     try {
+      if (boundSql == null) {
+        boundSql = mappedStatement.getBoundSql(parameterObject);
+      }
+      if (cacheKey == null) {
+        cacheKey = localExecutor.createCacheKey(mappedStatement, parameterObject, RowBounds.DEFAULT, boundSql);
+      }
       return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
     } finally {
       if (localExecutor != executor) {
@@ -0,0 +1,309 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Runs the nested query of a result mapping that declares a <code>batchSize</code> for many parent rows at once.
+ * <p>
+ * The nested statement receives the keys of up to <code>batchSize</code> parent rows as a list (named
+ * <code>list</code> or <code>collection</code>). Each row it returns is handed to the parents whose key equals the
+ * value of its <code>foreignColumn</code>. Every parent row gets a {@link ResultLoader} of its own, either loaded
+ * eagerly or registered for lazy loading: the first one to load runs the statement for the keys that are still
+ * pending, the others find their rows already loaded.
+ *
+ * @since 3.5.7
+ */
+public class ResultLoaderBatch {
+
+  // the batches whose statement is running on this thread, to detect circular nested selects
+  private static final ThreadLocal<Set<CacheKey>> RUNNING_BATCHES = ThreadLocal.withInitial(HashSet::new);
+  // the keys a circular mapping queries one by one on this thread, by statement
+  private static final ThreadLocal<Set<CacheKey>> SINGLY_QUERIED_KEYS = ThreadLocal.withInitial(HashSet::new);
+
+  private final Configuration configuration;
+  private final Executor executor;
+  private final MappedStatement mappedStatement;
+  private final ResultMapping resultMapping;
+  private final Lock lock = new ReentrantLock();
+  private final Map<CacheKey, Object> pendingParameters = new LinkedHashMap<>();
+  private final Map<CacheKey, List<Object>> loadedRows = new HashMap<>();
+  private final Map<CacheKey, Integer> loaderCounts = new HashMap<>();
+  private String[] foreignColumns;
+  private String[] foreignProperties;
+
+  public ResultLoaderBatch(Configuration configuration, Executor executor, MappedStatement mappedStatement, ResultMapping resultMapping) {
+    this.configuration = configuration;
+    this.executor = executor;
+    this.mappedStatement = mappedStatement;
+    this.resultMapping = resultMapping;
+  }
+
+  /**
+   * Adds a parent row to the batch.
+   *
+   * @param parameterObject
+   *          the parameter the nested query would receive for this parent row
+   * @param targetType
+   *          the type of the property to load
+   * @return the loader of the property of this parent row
+   */
+  public ResultLoader addLoader(Object parameterObject, Class<?> targetType) {
+    CacheKey key = createParentKey(parameterObject);
+    lock.lock();
+    try {
+      if (!loadedRows.containsKey(key)) {
+        pendingParameters.putIfAbsent(key, parameterObject);
+      }
+      loaderCounts.merge(key, 1, Integer::sum);
+    } finally {
+      lock.unlock();
+    }
+    return new BatchedResultLoader(parameterObject, targetType, key);
+  }
+
+  /**
+   * Tells whether the key of a parent row is queried on its own by a circular mapping on this thread. The rows of such
+   * a key are found in the local cache of the executor rather than loaded with the batch.
+   *
+   * @param parameterObject
+   *          the parameter the nested query would receive for the parent row
+   * @return true if the key is queried on its own
+   */
+  public boolean isQueriedSingly(Object parameterObject) {
+    final Set<CacheKey> singlyQueriedKeys = SINGLY_QUERIED_KEYS.get();
+    return !singlyQueriedKeys.isEmpty() && singlyQueriedKeys.contains(createSingleKey(createParentKey(parameterObject)));
+  }
+
+  private List<Object> load(BatchedResultLoader loader) throws SQLException {
+    lock.lock();
+    try {
+      List<Object> rows = loadedRows.get(loader.key);
+      if (rows == null) {
+        loadBatch(loader);
+        rows = loadedRows.get(loader.key);
+      }
+      if (loaderCounts.computeIfPresent(loader.key, (k, count) -> count > 1 ? count - 1 : null) == null) {
+        // every parent row with this key got its rows
+        loadedRows.remove(loader.key);
+      }
+      return rows;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void loadBatch(BatchedResultLoader loader) throws SQLException {
+    final int batchSize = resultMapping.getBatchSize();
+    final Map<CacheKey, List<Object>> batchRows = new HashMap<>();
+    final List<Object> parameters = new ArrayList<>();
+    pendingParameters.remove(loader.key);
+    batchRows.put(loader.key, new ArrayList<>());
+    parameters.add(loader.keyParameter);
+    Iterator<Map.Entry<CacheKey, Object>> pending = pendingParameters.entrySet().iterator();
+    while (parameters.size() < batchSize && pending.hasNext()) {
+      Map.Entry<CacheKey, Object> entry = pending.next();
+      pending.remove();
+      batchRows.put(entry.getKey(), new ArrayList<>());
+      parameters.add(entry.getValue());
+    }
+    final List<Object> rows = selectBatch(loader, parameters);
+    for (Object row : rows) {
+      List<Object> parentRows = batchRows.get(createRowKey(row));
+      if (parentRows != null) {
+        parentRows.add(row);
+      }
+    }
+    loadedRows.putAll(batchRows);
+  }
+
+  private List<Object> selectBatch(BatchedResultLoader loader, List<Object> parameters) throws SQLException {
+    final CacheKey batchKey = new CacheKey();
+    batchKey.update(mappedStatement.getId());
+    for (Object parameter : parameters) {
+      batchKey.update(createParentKey(parameter));
+    }
+    final Set<CacheKey> runningBatches = RUNNING_BATCHES.get();
+    if (parameters.size() > 1 && runningBatches.contains(batchKey)) {
+      // a circular mapping asks for the rows being mapped: query the keys one by one, so that the parent rows
+      // of these queries find them in the local cache and defer their loading until it is complete
+      final Set<CacheKey> singlyQueriedKeys = SINGLY_QUERIED_KEYS.get();
+      final List<CacheKey> addedKeys = new ArrayList<>();
+      for (Object parameter : parameters) {
+        final CacheKey singleKey = createSingleKey(createParentKey(parameter));
+        if (singlyQueriedKeys.add(singleKey)) {
+          addedKeys.add(singleKey);
+        }
+      }
+      try {
+        final List<Object> rows = new ArrayList<>();
+        for (Object parameter : parameters) {
+          rows.addAll(loader.selectList(ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(parameter), null), null, null));
+        }
+        return rows;
+      } finally {
+        singlyQueriedKeys.removeAll(addedKeys);
+      }
+    }
+    final boolean added = runningBatches.add(batchKey);
+    try {
+      return loader.selectList(ParamNameResolver.wrapToMapIfCollection(parameters, null), null, null);
+    } finally {
+      if (added) {
+        runningBatches.remove(batchKey);
+      }
+    }
+  }
+
+  private CacheKey createParentKey(Object parameterObject) {
+    final CacheKey key = new CacheKey();
+    if (resultMapping.isCompositeResult()) {
+      final MetaObject metaParameter = configuration.newMetaObject(parameterObject);
+      for (ResultMapping composite : resultMapping.getComposites()) {
+        key.update(normalize(metaParameter.getValue(composite.getProperty())));
+      }
+    } else {
+      key.update(normalize(parameterObject));
+    }
+    return key;
+  }
+
+  private CacheKey createSingleKey(CacheKey parentKey) {
+    final CacheKey key = new CacheKey();
+    key.update(mappedStatement.getId());
+    key.update(parentKey);
+    return key;
+  }
+
+  private CacheKey createRowKey(Object row) {
+    final CacheKey key = new CacheKey();
+    if (row instanceof Map) {
+      for (String column : getForeignColumns()) {
+        key.update(normalize(getIgnoreCase((Map<?, ?>) row, column)));
+      }
+    } else {
+      final MetaObject metaRow = configuration.newMetaObject(row);
+      for (String property : getForeignProperties()) {
+        key.update(normalize(metaRow.getValue(property)));
+      }
+    }
+    return key;
+  }
+
+  private String[] getForeignColumns() {
+    if (foreignColumns == null) {
+      final String[] columns = resultMapping.getForeignColumn().split(",");
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = columns[i].trim();
+      }
+      foreignColumns = columns;
+    }
+    return foreignColumns;
+  }
+
+  private String[] getForeignProperties() {
+    if (foreignProperties == null) {
+      final ResultMap resultMap = mappedStatement.getResultMaps().get(0);
+      final MetaClass metaClass = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
+      final String[] columns = getForeignColumns();
+      final String[] properties = new String[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        for (ResultMapping mapping : resultMap.getPropertyResultMappings()) {
+          // a nested select or result map on the same column does not hold the key
+          if (columns[i].equalsIgnoreCase(mapping.getColumn()) && mapping.getNestedQueryId() == null
+              && mapping.getNestedResultMapId() == null) {
+            properties[i] = mapping.getProperty();
+            break;
+          }
+        }
+        if (properties[i] == null) {
+          properties[i] = metaClass.findProperty(columns[i], configuration.isMapUnderscoreToCamelCase());
+        }
+        if (properties[i] == null) {
+          throw new ExecutorException("Could not find the property of '" + resultMap.getType().getName()
+              + "' mapped to the foreignColumn '" + columns[i] + "' of the nested query '" + mappedStatement.getId() + "'.");
+        }
+      }
+      foreignProperties = properties;
+    }
+    return foreignProperties;
+  }
+
+  private static Object getIgnoreCase(Map<?, ?> row, String column) {
+    for (Map.Entry<?, ?> entry : row.entrySet()) {
+      if (column.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static Object normalize(Object value) {
+    // the key of the parent row and the foreign column of the nested row may be read as different number types
+    if (value instanceof Number) {
+      try {
+        return new BigDecimal(value.toString()).stripTrailingZeros();
+      } catch (NumberFormatException e) {
+        return value;
+      }
+    }
+    return value;
+  }
+
+  private class BatchedResultLoader extends ResultLoader {
+    private final Object keyParameter;
+    private final CacheKey key;
+
+    BatchedResultLoader(Object keyParameter, Class<?> targetType, CacheKey key) {
+      // on its own, e.g. once deserialized, this loader runs the statement for its parent row only
+      super(ResultLoaderBatch.this.configuration, ResultLoaderBatch.this.executor,
+          ResultLoaderBatch.this.mappedStatement, ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(keyParameter), null), targetType, null, null);
+      this.keyParameter = keyParameter;
+      this.key = key;
+    }
+
+    @Override
+    public Object loadResult() throws SQLException {
+      resultObject = resultExtractor.extractObjectFromList(load(this), targetType);
+      return resultObject;
+    }
+  }
+
+}
@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BaseExecutor;
@@ -48,6 +50,7 @@ import org.apache.ibatis.session.RowBounds;
 public class ResultLoaderMap {
 
   private final Map<String, LoadPair> loaderMap = new HashMap<>();
+  private final Lock lock = new ReentrantLock();
 
   public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
     String upperFirst = getUppercaseFirstProperty(property);
@@ -71,6 +74,17 @@ public class ResultLoaderMap {
     return loaderMap.size();
   }
 
+  /**
+   * Gets the lock held by a lazy loading proxy while it loads properties. It is reentrant and, unlike a monitor, does
+   * not pin a virtual thread to its carrier while the nested query runs.
+   *
+   * @return the lock
+   * @since 3.5.7
+   */
+  public Lock getLock() {
+    return lock;
+  }
+
   public boolean hasLoader(String property) {
     return loaderMap.containsKey(property.toUpperCase(Locale.ENGLISH));
   }
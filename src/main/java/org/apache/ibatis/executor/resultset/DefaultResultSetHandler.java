@@ -21,8 +21,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -33,10 +36,12 @@ import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderBatch;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
@@ -51,6 +56,7 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
@@ -92,8 +98,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
-  // Cached Automappings
-  private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
+  // batched nested queries
+  private final Map<ResultMapping, ResultLoaderBatch> nestedQueryBatches = new IdentityHashMap<>();
+  private final List<PendingNestedQuery> pendingNestedQueries = new ArrayList<>();
+  private boolean handlingCursor;
 
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
@@ -103,7 +111,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
+  private static class PendingNestedQuery {
+    private final MetaObject metaObject;
+    private final String property;
+    private final ResultLoader resultLoader;
+
+    PendingNestedQuery(MetaObject metaObject, String property, ResultLoader resultLoader) {
+      this.metaObject = metaObject;
+      this.property = property;
+      this.resultLoader = resultLoader;
+    }
+  }
+
+  static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
     private final TypeHandler<?> typeHandler;
@@ -151,6 +171,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
+    loadPendingNestedQueries();
   }
 
   private void handleRefCursorOutputParameter(ResultSet rs, ParameterMapping parameterMapping, MetaObject metaParam) throws SQLException {
@@ -192,7 +213,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     while (rsw != null && resultMapCount > resultSetCount) {
       ResultMap resultMap = resultMaps.get(resultSetCount);
       handleResultSet(rsw, resultMap, multipleResults, null);
-      rsw = getNextResultSet(stmt);
+      rsw = getNextResultSet(stmt, resultSetCount + 1);
       cleanUpAfterHandlingResultSet();
       resultSetCount++;
     }
@@ -206,18 +227,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           ResultMap resultMap = configuration.getResultMap(nestedResultMapId);
           handleResultSet(rsw, resultMap, null, parentMapping);
         }
-        rsw = getNextResultSet(stmt);
+        rsw = getNextResultSet(stmt, resultSetCount + 1);
         cleanUpAfterHandlingResultSet();
         resultSetCount++;
       }
     }
 
+    loadPendingNestedQueries();
     return collapseSingleResultList(multipleResults);
   }
 
   @Override
   public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
     ErrorContext.instance().activity("handling cursor results").object(mappedStatement.getId());
+    // rows are handed out one by one, nested queries cannot wait for the last one
+    handlingCursor = true;
 
     ResultSetWrapper rsw = getFirstResultSet(stmt);
 
@@ -230,7 +254,39 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
-    return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    final Cursor<E> cursor = new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    final Integer prefetchSize = configuration.getCursorPrefetchSize();
+    // nested selects and lazy loaders must run on the thread of the session, not on the one reading ahead
+    if (prefetchSize == null || hasReachableNestedQueries(resultMap, new HashSet<>())) {
+      return cursor;
+    }
+    return new PrefetchingCursor<>(cursor, prefetchSize);
+  }
+
+  private boolean hasReachableNestedQueries(ResultMap resultMap, Set<String> visitedResultMapIds) {
+    if (!visitedResultMapIds.add(resultMap.getId())) {
+      return false;
+    }
+    if (resultMap.hasNestedQueries()) {
+      return true;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      final String nestedResultMapId = resultMapping.getNestedResultMapId();
+      if (nestedResultMapId != null
+          && hasReachableNestedQueries(configuration.getResultMap(nestedResultMapId), visitedResultMapIds)) {
+        return true;
+      }
+    }
+    final Discriminator discriminator = resultMap.getDiscriminator();
+    if (discriminator != null) {
+      for (String discriminatedMapId : discriminator.getDiscriminatorMap().values()) {
+        if (configuration.hasResultMap(discriminatedMapId)
+            && hasReachableNestedQueries(configuration.getResultMap(discriminatedMapId), visitedResultMapIds)) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
@@ -247,10 +303,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+    return rs != null ? wrapResultSet(rs, 0) : null;
   }
 
-  private ResultSetWrapper getNextResultSet(Statement stmt) {
+  private ResultSetWrapper getNextResultSet(Statement stmt, int resultSetIndex) {
     // Making this method tolerant of bad JDBC drivers
     try {
       if (stmt.getConnection().getMetaData().supportsMultipleResultSets()) {
@@ -258,9 +314,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (!(!stmt.getMoreResults() && stmt.getUpdateCount() == -1)) {
           ResultSet rs = stmt.getResultSet();
           if (rs == null) {
-            return getNextResultSet(stmt);
+            return getNextResultSet(stmt, resultSetIndex);
           } else {
-            return new ResultSetWrapper(rs, configuration);
+            return wrapResultSet(rs, resultSetIndex);
           }
         }
       }
@@ -270,6 +326,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return null;
   }
 
+  private ResultSetWrapper wrapResultSet(ResultSet rs, int resultSetIndex) throws SQLException {
+    final ResultSetMetadataCache metadataCache = mappedStatement.getResultSetMetadataCache();
+    // the column layout of the statement is usually the same as in the previous executions
+    return metadataCache != null ? new ResultSetWrapper(rs, configuration, metadataCache, resultSetIndex)
+        : new ResultSetWrapper(rs, configuration);
+  }
+
   private void closeResultSet(ResultSet rs) {
     try {
       if (rs != null) {
@@ -348,14 +411,71 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       throws SQLException {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
+    SimpleRowMapper rowMapper = rsw.getSimpleRowMapper(resultMap);
+    boolean compileRowMapper = rowMapper == null && isSimpleRowMapperCandidate(rsw, resultMap);
     skipRows(resultSet, rowBounds);
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
-      ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
+      Object rowValue;
+      if (rowMapper != null) {
+        rowValue = rowMapper.map(resultSet);
+      } else {
+        ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
+        rowValue = getRowValue(rsw, discriminatedResultMap, null);
+        if (compileRowMapper && rowValue != null) {
+          // the first row has resolved the auto-mappings, the next ones can use the compiled mapper
+          compileRowMapper = false;
+          rowMapper = compileSimpleRowMapper(rsw, resultMap, rowValue);
+        }
+      }
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
     }
   }
 
+  private boolean isSimpleRowMapperCandidate(ResultSetWrapper rsw, ResultMap resultMap) {
+    final Class<?> resultType = resultMap.getType();
+    if (resultMap.getDiscriminator() != null || resultMap.hasNestedQueries() || !resultMap.getConstructorResultMappings().isEmpty()
+        || resultType.isInterface() || hasTypeHandlerForResultObject(rsw, resultType)
+        || !MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor()) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null
+          || propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private SimpleRowMapper compileSimpleRowMapper(ResultSetWrapper rsw, ResultMap resultMap, Object rowValue) throws SQLException {
+    if (rowValue instanceof Map || rowValue instanceof Collection || configuration.getObjectWrapperFactory().hasWrapperFor(rowValue)) {
+      return null;
+    }
+    final SimpleRowMapper.Builder builder = new SimpleRowMapper.Builder(resultMap.getType(), objectFactory,
+        MetaClass.forClass(rowValue.getClass(), reflectorFactory));
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      final List<UnMappedColumnAutoMapping> autoMapping = rsw.getAutoMappings(resultMap, null);
+      if (autoMapping == null) {
+        return null;
+      }
+      for (UnMappedColumnAutoMapping mapping : autoMapping) {
+        builder.bind(mapping.column, mapping.property, mapping.typeHandler);
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String column = propertyMapping.getColumn();
+      if (column != null && propertyMapping.getProperty() != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        builder.bind(column, propertyMapping.getProperty(), propertyMapping.getTypeHandler());
+      }
+    }
+    final SimpleRowMapper rowMapper = builder.build(configuration.isCallSettersOnNulls(), configuration.isReturnInstanceForEmptyRow());
+    if (rowMapper != null) {
+      rsw.putSimpleRowMapper(resultMap, rowMapper);
+    }
+    return rowMapper;
+  }
+
   private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
     if (parentMapping != null) {
       linkToParents(rs, parentMapping, rowValue);
@@ -513,8 +633,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-    final String mapKey = resultMap.getId() + ":" + columnPrefix;
-    List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
+    List<UnMappedColumnAutoMapping> autoMapping = rsw.getAutoMappings(resultMap, columnPrefix);
     if (autoMapping == null) {
       autoMapping = new ArrayList<>();
       final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
@@ -547,7 +666,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
         }
       }
-      autoMappingsCache.put(mapKey, autoMapping);
+      rsw.putAutoMappings(resultMap, columnPrefix, autoMapping);
     }
     return autoMapping;
   }
@@ -780,6 +899,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final String nestedQueryId = propertyMapping.getNestedQueryId();
     final String property = propertyMapping.getProperty();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
+    if (propertyMapping.getBatchSize() > 0 && (propertyMapping.isLazy() || canDeferEagerNestedQueries())) {
+      return getBatchedNestedQueryMappingValue(rs, metaResultObject, propertyMapping, nestedQuery, lazyLoader, columnPrefix);
+    }
     final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
     final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
     Object value = null;
@@ -803,6 +925,51 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private Object getBatchedNestedQueryMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping,
+      MappedStatement nestedQuery, ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
+    // the nested query receives a list of keys, so its parameter type does not describe a key
+    final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, null, columnPrefix);
+    if (nestedQueryParameterObject == null) {
+      return null;
+    }
+    final ResultLoaderBatch batch = nestedQueryBatches.computeIfAbsent(propertyMapping,
+        k -> new ResultLoaderBatch(configuration, executor, nestedQuery, propertyMapping));
+    // rows being loaded by a circular mapping are handled like non-batched nested queries, the others do not render
+    // the nested query for each parent row
+    if (batch.isQueriedSingly(nestedQueryParameterObject)) {
+      final Object singleKeyParameter = ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(nestedQueryParameterObject), null);
+      final BoundSql nestedBoundSql = nestedQuery.getBoundSql(singleKeyParameter);
+      final CacheKey key = executor.createCacheKey(nestedQuery, singleKeyParameter, RowBounds.DEFAULT, nestedBoundSql);
+      if (executor.isCached(nestedQuery, key)) {
+        executor.deferLoad(nestedQuery, metaResultObject, propertyMapping.getProperty(), key, propertyMapping.getJavaType());
+        return DEFERRED;
+      }
+    }
+    final ResultLoader resultLoader = batch.addLoader(nestedQueryParameterObject, propertyMapping.getJavaType());
+    if (propertyMapping.isLazy()) {
+      lazyLoader.addLoader(propertyMapping.getProperty(), metaResultObject, resultLoader);
+    } else {
+      pendingNestedQueries.add(new PendingNestedQuery(metaResultObject, propertyMapping.getProperty(), resultLoader));
+    }
+    return DEFERRED;
+  }
+
+  private boolean canDeferEagerNestedQueries() {
+    // rows handed to a cursor or to a result handler must be complete
+    return !handlingCursor && resultHandler == null;
+  }
+
+  private void loadPendingNestedQueries() throws SQLException {
+    for (PendingNestedQuery pending : pendingNestedQueries) {
+      final Object value = pending.resultLoader.loadResult();
+      if (value != null || configuration.isCallSettersOnNulls() && !pending.metaObject.getSetterType(pending.property).isPrimitive()) {
+        pending.metaObject.setValue(pending.property, value);
+      }
+    }
+    pendingNestedQueries.clear();
+    nestedQueryBatches.clear();
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
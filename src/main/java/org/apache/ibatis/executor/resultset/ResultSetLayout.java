@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The columns of a result set and everything derived from them while mapping rows: the upper case column names, the
+ * mapped and unmapped columns of each result map, the type handler of each column, the automatic mappings and the
+ * compiled row mappers of the simple result maps.
+ * <p>
+ * A layout is shared by all the result sets with the same columns (see {@link ResultSetMetadataCache}), so the
+ * derived data is kept in concurrent maps.
+ */
+class ResultSetLayout {
+
+  private final List<String> columnNames;
+  private final List<String> upperColumnNames;
+  private final List<String> classNames;
+  private final List<JdbcType> jdbcTypes;
+  private final int[] columnTypes;
+
+  final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<>();
+  final Map<String, List<String>> mappedColumnNamesMap = new ConcurrentHashMap<>();
+  final Map<String, List<String>> unMappedColumnNamesMap = new ConcurrentHashMap<>();
+  final Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappingsMap = new ConcurrentHashMap<>();
+  final Map<String, SimpleRowMapper> simpleRowMapperMap = new ConcurrentHashMap<>();
+
+  private ResultSetLayout(List<String> columnNames, List<String> classNames, int[] columnTypes) {
+    final List<String> upperColumnNames = new ArrayList<>(columnNames.size());
+    final List<JdbcType> jdbcTypes = new ArrayList<>(columnTypes.length);
+    for (int i = 0; i < columnTypes.length; i++) {
+      // some drivers return no label for computed columns
+      final String columnName = columnNames.get(i);
+      upperColumnNames.add(columnName == null ? null : columnName.toUpperCase(Locale.ENGLISH));
+      jdbcTypes.add(JdbcType.forCode(columnTypes[i]));
+    }
+    this.columnNames = Collections.unmodifiableList(columnNames);
+    this.upperColumnNames = Collections.unmodifiableList(upperColumnNames);
+    this.classNames = Collections.unmodifiableList(classNames);
+    this.jdbcTypes = Collections.unmodifiableList(jdbcTypes);
+    this.columnTypes = columnTypes;
+  }
+
+  static ResultSetLayout read(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    final int columnCount = metaData.getColumnCount();
+    final List<String> columnNames = new ArrayList<>(columnCount);
+    final List<String> classNames = new ArrayList<>(columnCount);
+    final int[] columnTypes = new int[columnCount];
+    for (int i = 1; i <= columnCount; i++) {
+      columnNames.add(useColumnLabel ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
+      columnTypes[i - 1] = metaData.getColumnType(i);
+      classNames.add(metaData.getColumnClassName(i));
+    }
+    return new ResultSetLayout(columnNames, classNames, columnTypes);
+  }
+
+  /**
+   * Checks, without building anything, whether a result set has the columns of this layout. The class names are not
+   * compared: the driver derives them from the column types, and they are the most expensive to read.
+   *
+   * @param metaData
+   *          the meta data of the result set
+   * @param useColumnLabel
+   *          whether columns are named by their label
+   * @return true if the names and types of all columns are the same
+   * @throws SQLException
+   *           if the meta data cannot be read
+   */
+  boolean matches(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    final int columnCount = metaData.getColumnCount();
+    if (columnCount != columnTypes.length) {
+      return false;
+    }
+    for (int i = 1; i <= columnCount; i++) {
+      if (metaData.getColumnType(i) != columnTypes[i - 1]
+          || !Objects.equals(columnNames.get(i - 1), useColumnLabel ? metaData.getColumnLabel(i) : metaData.getColumnName(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  List<String> getUpperColumnNames() {
+    return upperColumnNames;
+  }
+
+  List<String> getClassNames() {
+    return classNames;
+  }
+
+  List<JdbcType> getJdbcTypes() {
+    return jdbcTypes;
+  }
+
+}
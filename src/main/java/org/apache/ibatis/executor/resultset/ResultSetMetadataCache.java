@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Keeps the column layouts of the result sets returned by a mapped statement, so that column names, type handlers and
+ * automatic mappings are resolved once instead of on every execution.
+ * <p>
+ * Each execution only compares the result set meta data with the known layouts. A few layouts are kept for each
+ * result set of the statement, as dynamic SQL may select different columns; the oldest one is dropped when a new
+ * layout shows up.
+ *
+ * @since 3.5.7
+ */
+public final class ResultSetMetadataCache {
+
+  private static final int MAX_LAYOUTS_PER_RESULT_SET = 4;
+
+  private volatile ResultSetLayout[][] layouts = new ResultSetLayout[0][];
+
+  ResultSetLayout getLayout(int resultSetIndex, ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    ResultSetLayout[][] current = layouts;
+    if (resultSetIndex < current.length) {
+      for (ResultSetLayout layout : current[resultSetIndex]) {
+        if (layout.matches(metaData, useColumnLabel)) {
+          return layout;
+        }
+      }
+    }
+    final ResultSetLayout layout = ResultSetLayout.read(metaData, useColumnLabel);
+    synchronized (this) {
+      current = layouts;
+      final ResultSetLayout[][] updated = Arrays.copyOf(current, Math.max(current.length, resultSetIndex + 1));
+      final ResultSetLayout[] known = resultSetIndex < current.length ? current[resultSetIndex] : new ResultSetLayout[0];
+      final ResultSetLayout[] layoutsOfResultSet = new ResultSetLayout[Math.min(known.length + 1, MAX_LAYOUTS_PER_RESULT_SET)];
+      layoutsOfResultSet[0] = layout;
+      System.arraycopy(known, 0, layoutsOfResultSet, 1, layoutsOfResultSet.length - 1);
+      for (int i = current.length; i < resultSetIndex; i++) {
+        updated[i] = new ResultSetLayout[0];
+      }
+      updated[resultSetIndex] = layoutsOfResultSet;
+      layouts = updated;
+    }
+    return layout;
+  }
+
+  /**
+   * Forgets all the known layouts.
+   */
+  public void clear() {
+    synchronized (this) {
+      layouts = new ResultSetLayout[0][];
+    }
+  }
+
+}
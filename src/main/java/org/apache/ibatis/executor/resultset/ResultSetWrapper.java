@@ -16,16 +16,15 @@
 package org.apache.ibatis.executor.resultset;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
@@ -43,24 +42,25 @@ public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
-  private final List<String> columnNames = new ArrayList<>();
-  private final List<String> classNames = new ArrayList<>();
-  private final List<JdbcType> jdbcTypes = new ArrayList<>();
-  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
-  private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
-  private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final ResultSetLayout layout;
+  private final List<String> columnNames;
+  private final List<JdbcType> jdbcTypes;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, ResultSetLayout.read(rs.getMetaData(), configuration.isUseColumnLabel()));
+  }
+
+  ResultSetWrapper(ResultSet rs, Configuration configuration, ResultSetMetadataCache metadataCache, int resultSetIndex) throws SQLException {
+    this(rs, configuration, metadataCache.getLayout(resultSetIndex, rs.getMetaData(), configuration.isUseColumnLabel()));
+  }
+
+  private ResultSetWrapper(ResultSet rs, Configuration configuration, ResultSetLayout layout) {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
-    final ResultSetMetaData metaData = rs.getMetaData();
-    final int columnCount = metaData.getColumnCount();
-    for (int i = 1; i <= columnCount; i++) {
-      columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
-      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
-      classNames.add(metaData.getColumnClassName(i));
-    }
+    this.layout = layout;
+    this.columnNames = layout.getColumnNames();
+    this.jdbcTypes = layout.getJdbcTypes();
   }
 
   public ResultSet getResultSet() {
@@ -72,7 +72,7 @@ public class ResultSetWrapper {
   }
 
   public List<String> getClassNames() {
-    return Collections.unmodifiableList(classNames);
+    return layout.getClassNames();
   }
 
   public List<JdbcType> getJdbcTypes() {
@@ -81,7 +81,8 @@ public class ResultSetWrapper {
 
   public JdbcType getJdbcType(String columnName) {
     for (int i = 0; i < columnNames.size(); i++) {
-      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+      final String name = columnNames.get(i);
+      if (name != null && name.equalsIgnoreCase(columnName)) {
         return jdbcTypes.get(i);
       }
     }
@@ -101,12 +102,15 @@ public class ResultSetWrapper {
    */
   public TypeHandler<?> getTypeHandler(Class<?> propertyType, String columnName) {
     TypeHandler<?> handler = null;
-    Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
-    if (columnHandlers == null) {
-      columnHandlers = new HashMap<>();
-      typeHandlerMap.put(columnName, columnHandlers);
-    } else {
-      handler = columnHandlers.get(propertyType);
+    Map<Class<?>, TypeHandler<?>> columnHandlers = null;
+    // handlers are not kept for a column without a name or an unknown type, as concurrent maps do not take null keys
+    if (columnName != null && propertyType != null) {
+      columnHandlers = layout.typeHandlerMap.get(columnName);
+      if (columnHandlers == null) {
+        columnHandlers = layout.typeHandlerMap.computeIfAbsent(columnName, k -> new ConcurrentHashMap<>());
+      } else {
+        handler = columnHandlers.get(propertyType);
+      }
     }
     if (handler == null) {
       JdbcType jdbcType = getJdbcType(columnName);
@@ -115,7 +119,7 @@ public class ResultSetWrapper {
       // See issue #59 comment 10
       if (handler == null || handler instanceof UnknownTypeHandler) {
         final int index = columnNames.indexOf(columnName);
-        final Class<?> javaType = resolveClass(classNames.get(index));
+        final Class<?> javaType = resolveClass(layout.getClassNames().get(index));
         if (javaType != null && jdbcType != null) {
           handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
         } else if (javaType != null) {
@@ -127,7 +131,9 @@ public class ResultSetWrapper {
       if (handler == null || handler instanceof UnknownTypeHandler) {
         handler = new ObjectTypeHandler();
       }
-      columnHandlers.put(propertyType, handler);
+      if (columnHandlers != null) {
+        columnHandlers.put(propertyType, handler);
+      }
     }
     return handler;
   }
@@ -149,36 +155,53 @@ public class ResultSetWrapper {
     List<String> unmappedColumnNames = new ArrayList<>();
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
     final Set<String> mappedColumns = prependPrefixes(resultMap.getMappedColumns(), upperColumnPrefix);
-    for (String columnName : columnNames) {
-      final String upperColumnName = columnName.toUpperCase(Locale.ENGLISH);
+    final List<String> upperColumnNames = layout.getUpperColumnNames();
+    for (int i = 0; i < upperColumnNames.size(); i++) {
+      final String upperColumnName = upperColumnNames.get(i);
       if (mappedColumns.contains(upperColumnName)) {
         mappedColumnNames.add(upperColumnName);
       } else {
-        unmappedColumnNames.add(columnName);
+        unmappedColumnNames.add(columnNames.get(i));
       }
     }
-    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
-    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    layout.mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), Collections.unmodifiableList(mappedColumnNames));
+    layout.unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), Collections.unmodifiableList(unmappedColumnNames));
   }
 
   public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    List<String> mappedColumnNames = layout.mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
     if (mappedColumnNames == null) {
       loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+      mappedColumnNames = layout.mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
     }
     return mappedColumnNames;
   }
 
   public List<String> getUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    List<String> unMappedColumnNames = layout.unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
     if (unMappedColumnNames == null) {
       loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+      unMappedColumnNames = layout.unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
     }
     return unMappedColumnNames;
   }
 
+  List<DefaultResultSetHandler.UnMappedColumnAutoMapping> getAutoMappings(ResultMap resultMap, String columnPrefix) {
+    return layout.autoMappingsMap.get(getMapKey(resultMap, columnPrefix));
+  }
+
+  void putAutoMappings(ResultMap resultMap, String columnPrefix, List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMappings) {
+    layout.autoMappingsMap.put(getMapKey(resultMap, columnPrefix), autoMappings);
+  }
+
+  SimpleRowMapper getSimpleRowMapper(ResultMap resultMap) {
+    return layout.simpleRowMapperMap.get(resultMap.getId());
+  }
+
+  void putSimpleRowMapper(ResultMap resultMap, SimpleRowMapper rowMapper) {
+    layout.simpleRowMapperMap.put(resultMap.getId(), rowMapper);
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Maps rows to a simple result map (a bean with a default constructor and flat property mappings) through bindings
+ * resolved once per result set layout. This skips the per-row <code>MetaObject</code> creation, property name parsing
+ * and mapped column lookups done by {@link DefaultResultSetHandler} while producing the same objects.
+ */
+class SimpleRowMapper {
+
+  private final Class<?> type;
+  private final ObjectFactory objectFactory;
+  private final Binding[] bindings;
+  private final boolean callSettersOnNulls;
+  private final boolean returnInstanceForEmptyRow;
+
+  private SimpleRowMapper(Class<?> type, ObjectFactory objectFactory, List<Binding> bindings, boolean callSettersOnNulls,
+      boolean returnInstanceForEmptyRow) {
+    this.type = type;
+    this.objectFactory = objectFactory;
+    this.bindings = bindings.toArray(new Binding[0]);
+    this.callSettersOnNulls = callSettersOnNulls;
+    this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+  }
+
+  Object map(ResultSet rs) throws SQLException {
+    final Object rowValue = objectFactory.create(type);
+    boolean foundValues = false;
+    for (Binding binding : bindings) {
+      final Object value = binding.typeHandler.getResult(rs, binding.column);
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (callSettersOnNulls && !binding.primitive)) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        binding.set(rowValue, value);
+      }
+    }
+    return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+  }
+
+  static class Builder {
+    private final Class<?> type;
+    private final ObjectFactory objectFactory;
+    private final MetaClass metaClass;
+    private final List<Binding> bindings = new ArrayList<>();
+    private boolean compilable = true;
+
+    Builder(Class<?> type, ObjectFactory objectFactory, MetaClass metaClass) {
+      this.type = type;
+      this.objectFactory = objectFactory;
+      this.metaClass = metaClass;
+    }
+
+    /**
+     * Binds a column to a property. Nested or indexed properties and properties without a setter make the builder
+     * return <code>null</code>, as they need a <code>MetaObject</code>.
+     */
+    Builder bind(String column, String property, TypeHandler<?> typeHandler) {
+      if (property.indexOf('.') > -1 || property.indexOf('[') > -1 || !metaClass.hasSetter(property)) {
+        compilable = false;
+      } else {
+        bindings.add(new Binding(column, property, typeHandler, metaClass.getSetInvoker(property),
+            metaClass.getSetterType(property).isPrimitive()));
+      }
+      return this;
+    }
+
+    SimpleRowMapper build(boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) {
+      return compilable ? new SimpleRowMapper(type, objectFactory, bindings, callSettersOnNulls, returnInstanceForEmptyRow) : null;
+    }
+  }
+
+  private static class Binding {
+    private final String column;
+    private final String property;
+    private final TypeHandler<?> typeHandler;
+    private final Invoker setter;
+    private final boolean primitive;
+
+    Binding(String column, String property, TypeHandler<?> typeHandler, Invoker setter, boolean primitive) {
+      this.column = column;
+      this.property = property;
+      this.typeHandler = typeHandler;
+      this.setter = setter;
+      this.primitive = primitive;
+    }
+
+    void set(Object object, Object value) {
+      try {
+        try {
+          setter.invoke(object, new Object[] { value });
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      } catch (Throwable t) {
+        throw new ReflectionException("Could not set property '" + property + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+      }
+    }
+  }
+
+}
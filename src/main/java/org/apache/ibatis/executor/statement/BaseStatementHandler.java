@@ -62,6 +62,11 @@ public abstract class BaseStatementHandler implements StatementHandler {
     if (boundSql == null) { // issue #435, get the key before calculating the statement
       generateKeys(parameterObject);
       boundSql = mappedStatement.getBoundSql(parameterObject);
+      if (boundSql.getPartitions() != null) {
+        throw new ExecutorException("The statement '" + mappedStatement.getId() + "' renders a foreach with more elements"
+            + " than its splitSize, which cannot be run in several executions by an update."
+            + " Lower the number of elements or remove the splitSize.");
+      }
     }
 
     this.boundSql = boundSql;
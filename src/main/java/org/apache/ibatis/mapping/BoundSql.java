@@ -40,6 +40,7 @@ public class BoundSql {
   private final Object parameterObject;
   private final Map<String, Object> additionalParameters;
   private final MetaObject metaParameters;
+  private List<BoundSql> partitions;
 
   public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
     this.sql = sql;
@@ -73,4 +74,28 @@ public class BoundSql {
   public Object getAdditionalParameter(String name) {
     return metaParameters.getValue(name);
   }
+
+  /**
+   * Returns the statements that return the rows of the whole statement when executed one after the other. They are
+   * available when a collection has been split because of its size (see the <code>splitSize</code> of foreach), in
+   * which case this statement only renders the first part of the collection and is the first partition.
+   *
+   * @return the statements, or <code>null</code> if this statement is not split
+   * @since 3.5.7
+   */
+  public List<BoundSql> getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * Sets the statements that return the rows of the whole statement when executed one after the other. Called by the
+   * {@link SqlSource} that rendered this statement, the first partition being this statement.
+   *
+   * @param partitions
+   *          the statements, or <code>null</code> if this statement is not split
+   * @since 3.5.7
+   */
+  public void setPartitions(List<BoundSql> partitions) {
+    this.partitions = partitions;
+  }
 }
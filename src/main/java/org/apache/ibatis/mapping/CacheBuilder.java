@@ -31,6 +31,7 @@ import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -100,6 +101,9 @@ public class CacheBuilder {
         setCacheProperties(cache);
       }
       cache = setStandardDecorators(cache);
+    } else if (TinyLfuCache.class.equals(cache.getClass())) {
+      // evicts on its own and is thread-safe
+      cache = setStandardDecorators(cache);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
@@ -113,10 +117,15 @@ public class CacheBuilder {
         decorators.add(LruCache.class);
       }
     }
+    if (PerpetualCache.class.equals(implementation) && decorators.remove(TinyLfuCache.class)) {
+      // selected as eviction policy, but it also stores the entries
+      implementation = TinyLfuCache.class;
+    }
   }
 
   private Cache setStandardDecorators(Cache cache) {
     try {
+      boolean threadSafe = cache instanceof TinyLfuCache;
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
@@ -129,7 +138,9 @@ public class CacheBuilder {
         cache = new SerializedCache(cache);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (!threadSafe) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
       }
@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import java.util.function.Supplier;
+
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * A mapped statement that is compiled when it is first used.
+ * <p>
+ * The id, resource and database id are known upfront, the {@link MappedStatement} itself is built by the supplier the first time
+ * {@link Configuration#getMappedStatement(String)} returns it. The supplier is released once the statement is built.
+ *
+ * @since 3.5.7
+ * @see Configuration#isLazyStatementBuilding()
+ */
+public final class LazyMappedStatement {
+
+  private final Object lock = new Object();
+  private final String id;
+  private final String resource;
+  private final String databaseId;
+  private Supplier<MappedStatement> builder;
+  private volatile MappedStatement statement;
+
+  public LazyMappedStatement(String id, String resource, String databaseId, Supplier<MappedStatement> builder) {
+    this.id = id;
+    this.resource = resource;
+    this.databaseId = databaseId;
+    this.builder = builder;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getResource() {
+    return resource;
+  }
+
+  public String getDatabaseId() {
+    return databaseId;
+  }
+
+  /**
+   * Returns whether the statement has already been compiled.
+   *
+   * @return true if the statement has been compiled
+   */
+  public boolean isBuilt() {
+    return statement != null;
+  }
+
+  /**
+   * Returns the statement, compiling it on the first call.
+   *
+   * @return the compiled statement
+   */
+  public MappedStatement getMappedStatement() {
+    MappedStatement result = statement;
+    if (result == null) {
+      synchronized (lock) {
+        result = statement;
+        if (result == null) {
+          result = builder.get();
+          statement = result;
+          builder = null;
+        }
+      }
+    }
+    return result;
+  }
+
+}
@@ -23,6 +23,7 @@ import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.resultset.ResultSetMetadataCache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -56,6 +57,7 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private ResultSetMetadataCache resultSetMetadataCache;
 
   MappedStatement() {
     // constructor disabled
@@ -80,6 +82,7 @@ public final class MappedStatement {
       }
       mappedStatement.statementLog = LogFactory.getLog(logId);
       mappedStatement.lang = configuration.getDefaultScriptingLanguageInstance();
+      mappedStatement.resultSetMetadataCache = new ResultSetMetadataCache();
     }
 
     public Builder resource(String resource) {
@@ -301,6 +304,16 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Gets the column layouts of the result sets returned by this statement.
+   *
+   * @return the result set metadata cache
+   * @since 3.5.7
+   */
+  public ResultSetMetadataCache getResultSetMetadataCache() {
+    return resultSetMetadataCache;
+  }
+
   public BoundSql getBoundSql(Object parameterObject) {
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
@@ -45,6 +45,7 @@ public class ResultMapping {
   private String resultSet;
   private String foreignColumn;
   private boolean lazy;
+  private int batchSize;
 
   ResultMapping() {
   }
@@ -132,6 +133,19 @@ public class ResultMapping {
       return this;
     }
 
+    /**
+     * Sets the maximum number of parent rows whose nested query is run at once.
+     *
+     * @param batchSize
+     *          the batch size, 0 to run the nested query once per parent row
+     * @return this builder
+     * @since 3.5.7
+     */
+    public Builder batchSize(int batchSize) {
+      resultMapping.batchSize = batchSize;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -167,6 +181,15 @@ public class ResultMapping {
           throw new IllegalStateException("There should be the same number of columns and foreignColumns in property " + resultMapping.property);
         }
       }
+      if (resultMapping.batchSize > 0) {
+        if (resultMapping.nestedQueryId == null || resultMapping.foreignColumn == null) {
+          throw new IllegalStateException("Mapping with a batchSize must define both select and foreignColumn attributes for property " + resultMapping.property);
+        }
+        int numColumns = resultMapping.composites.isEmpty() ? 1 : resultMapping.composites.size();
+        if (numColumns != resultMapping.foreignColumn.split(",").length) {
+          throw new IllegalStateException("There should be the same number of columns and foreignColumns in property " + resultMapping.property);
+        }
+      }
     }
 
     private void resolveTypeHandler() {
@@ -251,6 +274,16 @@ public class ResultMapping {
     this.lazy = lazy;
   }
 
+  /**
+   * Gets the maximum number of parent rows whose nested query is run at once.
+   *
+   * @return the batch size, 0 if the nested query is run once per parent row
+   * @since 3.5.7
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
   public boolean isSimple() {
     return this.nestedResultMapId == null && this.nestedQueryId == null && this.resultSet == null;
   }
@@ -298,6 +331,7 @@ public class ResultMapping {
     sb.append(", resultSet='").append(resultSet).append('\'');
     sb.append(", foreignColumn='").append(foreignColumn).append('\'');
     sb.append(", lazy=").append(lazy);
+    sb.append(", batchSize=").append(batchSize);
     sb.append('}');
     return sb.toString();
   }
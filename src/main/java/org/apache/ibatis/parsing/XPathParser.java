@@ -19,13 +19,18 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
@@ -41,11 +46,26 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 /**
+ * Parses an XML document and evaluates XPath expressions against it.
+ * <p>
+ * The {@link DocumentBuilderFactory} and {@link XPathFactory} are looked up once and shared by all parsers. They are
+ * looked up from the class loader of MyBatis rather than from the context class loader of the thread, so that a
+ * MyBatis shared by several applications of a container does not keep the JAXP implementation of the application that
+ * happened to parse the first document.
+ *
  * @author Clinton Begin
  * @author Kazuki Shimizu
  */
 public class XPathParser {
 
+  // looking up the JAXP implementations scans the class path, so the factories are created once and shared
+  private static final DocumentBuilderFactory[] documentBuilderFactories = new DocumentBuilderFactory[2];
+  private static XPathFactory xpathFactory;
+
+  // expressions are constants of the builders, the bound only guards against callers building them dynamically
+  private static final int MAX_CACHED_PATHS = 256;
+  private static final Map<String, ElementPath> elementPaths = new ConcurrentHashMap<>();
+
   private final Document document;
   private boolean validation;
   private EntityResolver entityResolver;
@@ -200,6 +220,13 @@ public class XPathParser {
 
   public List<XNode> evalNodes(Object root, String expression) {
     List<XNode> xnodes = new ArrayList<>();
+    ElementPath path = elementPath(expression);
+    if (path != ElementPath.UNSUPPORTED && root instanceof Node) {
+      for (Node node : path.select((Node) root, false)) {
+        xnodes.add(new XNode(this, node, variables));
+      }
+      return xnodes;
+    }
     NodeList nodes = (NodeList) evaluate(expression, root, XPathConstants.NODESET);
     for (int i = 0; i < nodes.getLength(); i++) {
       xnodes.add(new XNode(this, nodes.item(i), variables));
@@ -212,13 +239,31 @@ public class XPathParser {
   }
 
   public XNode evalNode(Object root, String expression) {
-    Node node = (Node) evaluate(expression, root, XPathConstants.NODE);
+    Node node;
+    ElementPath path = elementPath(expression);
+    if (path != ElementPath.UNSUPPORTED && root instanceof Node) {
+      List<Node> nodes = path.select((Node) root, true);
+      node = nodes.isEmpty() ? null : nodes.get(0);
+    } else {
+      node = (Node) evaluate(expression, root, XPathConstants.NODE);
+    }
     if (node == null) {
       return null;
     }
     return new XNode(this, node, variables);
   }
 
+  private static ElementPath elementPath(String expression) {
+    ElementPath path = elementPaths.get(expression);
+    if (path == null) {
+      path = ElementPath.parse(expression);
+      if (elementPaths.size() < MAX_CACHED_PATHS) {
+        elementPaths.put(expression, path);
+      }
+    }
+    return path;
+  }
+
   private Object evaluate(String expression, Object root, QName returnType) {
     try {
       return xpath.evaluate(expression, root, returnType);
@@ -230,17 +275,7 @@ public class XPathParser {
   private Document createDocument(InputSource inputSource) {
     // important: this must only be called AFTER common constructor
     try {
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-      factory.setValidating(validation);
-
-      factory.setNamespaceAware(false);
-      factory.setIgnoringComments(true);
-      factory.setIgnoringElementContentWhitespace(false);
-      factory.setCoalescing(false);
-      factory.setExpandEntityReferences(true);
-
-      DocumentBuilder builder = factory.newDocumentBuilder();
+      DocumentBuilder builder = newDocumentBuilder(validation);
       builder.setEntityResolver(entityResolver);
       builder.setErrorHandler(new ErrorHandler() {
         @Override
@@ -268,8 +303,131 @@ public class XPathParser {
     this.validation = validation;
     this.entityResolver = entityResolver;
     this.variables = variables;
-    XPathFactory factory = XPathFactory.newInstance();
-    this.xpath = factory.newXPath();
+    this.xpath = newXPath();
+  }
+
+  private static synchronized DocumentBuilder newDocumentBuilder(boolean validation) throws ParserConfigurationException {
+    int i = validation ? 1 : 0;
+    DocumentBuilderFactory factory = documentBuilderFactories[i];
+    if (factory == null) {
+      factory = withParserClassLoader(DocumentBuilderFactory::newInstance);
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setValidating(validation);
+
+      factory.setNamespaceAware(false);
+      factory.setIgnoringComments(true);
+      factory.setIgnoringElementContentWhitespace(false);
+      factory.setCoalescing(false);
+      factory.setExpandEntityReferences(true);
+      documentBuilderFactories[i] = factory;
+    }
+    return factory.newDocumentBuilder();
+  }
+
+  private static synchronized XPath newXPath() {
+    if (xpathFactory == null) {
+      xpathFactory = withParserClassLoader(XPathFactory::newInstance);
+    }
+    return xpathFactory.newXPath();
+  }
+
+  private static <T> T withParserClassLoader(Supplier<T> lookup) {
+    Thread thread = Thread.currentThread();
+    ClassLoader previousClassLoader = thread.getContextClassLoader();
+    thread.setContextClassLoader(XPathParser.class.getClassLoader());
+    try {
+      return lookup.get();
+    } finally {
+      thread.setContextClassLoader(previousClassLoader);
+    }
+  }
+
+  /**
+   * An XPath expression that only selects elements by name, like <code>/mapper/resultMap</code>, <code>selectKey</code>
+   * or <code>select|insert|update|delete</code>. It is evaluated by walking the child elements of the DOM, which is
+   * much cheaper than running the XPath engine. Any other expression is left to {@link XPath}.
+   */
+  static class ElementPath {
+    static final ElementPath UNSUPPORTED = new ElementPath(false, null);
+
+    private final boolean absolute;
+    // the names accepted at each step, "*" accepts any element
+    private final String[][] steps;
+
+    private ElementPath(boolean absolute, String[][] steps) {
+      this.absolute = absolute;
+      this.steps = steps;
+    }
+
+    static ElementPath parse(String expression) {
+      if (expression.indexOf('|') >= 0) {
+        // a union of element names relative to the context node
+        String[] names = expression.split("\\|", -1);
+        for (int i = 0; i < names.length; i++) {
+          names[i] = names[i].trim();
+          if (!isName(names[i])) {
+            return UNSUPPORTED;
+          }
+        }
+        return new ElementPath(false, new String[][] { names });
+      }
+      boolean absolute = expression.startsWith("/");
+      String[] names = (absolute ? expression.substring(1) : expression).split("/", -1);
+      String[][] steps = new String[names.length][];
+      for (int i = 0; i < names.length; i++) {
+        if (!isName(names[i]) && !"*".equals(names[i])) {
+          return UNSUPPORTED;
+        }
+        steps[i] = new String[] { names[i] };
+      }
+      return new ElementPath(absolute, steps);
+    }
+
+    private static boolean isName(String name) {
+      if (name.isEmpty() || !Character.isLetter(name.charAt(0)) && name.charAt(0) != '_') {
+        return false;
+      }
+      for (int i = 1; i < name.length(); i++) {
+        char c = name.charAt(i);
+        if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Selects the matching elements in document order.
+     */
+    List<Node> select(Node root, boolean first) {
+      Node start = absolute && root.getNodeType() != Node.DOCUMENT_NODE ? root.getOwnerDocument() : root;
+      List<Node> current = Collections.singletonList(start);
+      for (int i = 0; i < steps.length; i++) {
+        boolean last = i == steps.length - 1;
+        List<Node> next = new ArrayList<>();
+        for (Node node : current) {
+          for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && matches(steps[i], child.getNodeName())) {
+              next.add(child);
+              if (first && last) {
+                return next;
+              }
+            }
+          }
+        }
+        current = next;
+      }
+      return current;
+    }
+
+    private static boolean matches(String[] names, String name) {
+      for (String candidate : names) {
+        if (candidate.equals(name) || "*".equals(candidate)) {
+          return true;
+        }
+      }
+      return false;
+    }
   }
 
 }
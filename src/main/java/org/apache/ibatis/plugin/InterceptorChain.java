@@ -18,6 +18,8 @@ package org.apache.ibatis.plugin;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Clinton Begin
@@ -25,20 +27,66 @@ import java.util.List;
 public class InterceptorChain {
 
   private final List<Interceptor> interceptors = new ArrayList<>();
+  // interceptors plugged by a shared proxy, or interceptors with their own plugin method, in the order they apply
+  private final List<Object> stages = new ArrayList<>();
 
   public Object pluginAll(Object target) {
-    for (Interceptor interceptor : interceptors) {
-      target = interceptor.plugin(target);
+    for (Object stage : stages) {
+      if (stage instanceof Interceptor) {
+        target = ((Interceptor) stage).plugin(target);
+      } else {
+        target = ((Stage) stage).wrap(target);
+      }
     }
     return target;
   }
 
   public void addInterceptor(Interceptor interceptor) {
     interceptors.add(interceptor);
+    if (!usesDefaultPlugin(interceptor)) {
+      stages.add(interceptor);
+    } else if (!stages.isEmpty() && stages.get(stages.size() - 1) instanceof Stage) {
+      stages.set(stages.size() - 1, new Stage((Stage) stages.get(stages.size() - 1), interceptor));
+    } else {
+      stages.add(new Stage(null, interceptor));
+    }
   }
 
   public List<Interceptor> getInterceptors() {
     return Collections.unmodifiableList(interceptors);
   }
 
+  private static boolean usesDefaultPlugin(Interceptor interceptor) {
+    try {
+      return interceptor.getClass().getMethod("plugin", Object.class).getDeclaringClass() == Interceptor.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Consecutive interceptors that plug themselves with {@link Plugin#wrap(Object, Interceptor)}, applied to a target
+   * by a single proxy.
+   */
+  private static class Stage {
+    private final List<Interceptor> interceptors = new ArrayList<>();
+    private final Map<Class<?>, PluginChain> chains = new ConcurrentHashMap<>();
+
+    Stage(Stage previous, Interceptor interceptor) {
+      if (previous != null) {
+        interceptors.addAll(previous.interceptors);
+      }
+      interceptors.add(interceptor);
+    }
+
+    Object wrap(Object target) {
+      Class<?> type = target.getClass();
+      PluginChain chain = chains.get(type);
+      if (chain == null) {
+        chain = chains.computeIfAbsent(type, k -> PluginChain.of(k, interceptors));
+      }
+      return chain.wrap(target);
+    }
+  }
+
 }
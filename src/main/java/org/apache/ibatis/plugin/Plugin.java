@@ -17,7 +17,7 @@ package org.apache.ibatis.plugin;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -31,34 +31,29 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 public class Plugin implements InvocationHandler {
 
   private final Object target;
-  private final Interceptor interceptor;
-  private final Map<Class<?>, Set<Method>> signatureMap;
+  private final PluginChain chain;
+  private final int level;
+  // the proxies of the levels of the chain wrapping the target, created when first needed
+  private final Object[] proxies;
 
-  private Plugin(Object target, Interceptor interceptor, Map<Class<?>, Set<Method>> signatureMap) {
+  Plugin(Object target, PluginChain chain, int level, Object[] proxies) {
     this.target = target;
-    this.interceptor = interceptor;
-    this.signatureMap = signatureMap;
+    this.chain = chain;
+    this.level = level;
+    this.proxies = proxies;
   }
 
   public static Object wrap(Object target, Interceptor interceptor) {
-    Map<Class<?>, Set<Method>> signatureMap = getSignatureMap(interceptor);
-    Class<?> type = target.getClass();
-    Class<?>[] interfaces = getAllInterfaces(type, signatureMap);
-    if (interfaces.length > 0) {
-      return Proxy.newProxyInstance(
-          type.getClassLoader(),
-          interfaces,
-          new Plugin(target, interceptor, signatureMap));
-    }
-    return target;
+    return PluginChain.of(target.getClass(), Collections.singletonList(interceptor)).wrap(target);
   }
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     try {
-      Set<Method> methods = signatureMap.get(method.getDeclaringClass());
-      if (methods != null && methods.contains(method)) {
-        return interceptor.intercept(new Invocation(target, method, args));
+      for (int interceptingLevel : chain.getInterceptingLevels(method)) {
+        if (interceptingLevel >= level) {
+          return chain.getInterceptor(interceptingLevel).intercept(new Invocation(getProxy(interceptingLevel + 1), method, args));
+        }
       }
       return method.invoke(target, args);
     } catch (Exception e) {
@@ -66,7 +61,15 @@ public class Plugin implements InvocationHandler {
     }
   }
 
-  private static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
+  private Object getProxy(int level) {
+    if (level == chain.size()) {
+      return target;
+    }
+    Object proxy = proxies[level];
+    return proxy != null ? proxy : chain.newProxy(target, level, proxies);
+  }
+
+  static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
     Intercepts interceptsAnnotation = interceptor.getClass().getAnnotation(Intercepts.class);
     // issue #251
     if (interceptsAnnotation == null) {
@@ -86,7 +89,7 @@ public class Plugin implements InvocationHandler {
     return signatureMap;
   }
 
-  private static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
+  static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
     Set<Class<?>> interfaces = new HashSet<>();
     while (type != null) {
       for (Class<?> c : type.getInterfaces()) {
@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The interceptors applied to a type of target by a single {@link Plugin} proxy, as if each of them had wrapped the
+ * target with {@link Plugin#wrap(Object, Interceptor)} in turn.
+ * <p>
+ * Levels are numbered from the outermost interceptor (the last one applied) inwards. The levels intercepting a method
+ * are computed once per chain, so a call that no interceptor intercepts goes straight to the target.
+ */
+final class PluginChain {
+
+  private static final int[] NO_LEVELS = new int[0];
+
+  private final Interceptor[] interceptors;
+  private final List<Map<Class<?>, Set<Method>>> signatureMaps;
+  // the interfaces implemented by the proxy of each level
+  private final Class<?>[][] interfaces;
+  private final Map<Method, int[]> interceptingLevels = new ConcurrentHashMap<>();
+
+  private PluginChain(Interceptor[] interceptors, List<Map<Class<?>, Set<Method>>> signatureMaps, Class<?>[][] interfaces) {
+    this.interceptors = interceptors;
+    this.signatureMaps = signatureMaps;
+    this.interfaces = interfaces;
+  }
+
+  /**
+   * Builds the chain applying interceptors to a type of target.
+   *
+   * @param type
+   *          the type of the target
+   * @param interceptors
+   *          the interceptors, in the order they are applied
+   * @return the chain, without the interceptors that do not intercept any interface of the type
+   */
+  static PluginChain of(Class<?> type, List<Interceptor> interceptors) {
+    List<Interceptor> applied = new ArrayList<>();
+    List<Map<Class<?>, Set<Method>>> signatureMaps = new ArrayList<>();
+    List<Class<?>[]> interfaces = new ArrayList<>();
+    Class<?>[] current = null;
+    for (Interceptor interceptor : interceptors) {
+      Map<Class<?>, Set<Method>> signatureMap = Plugin.getSignatureMap(interceptor);
+      // a proxy only implements the interfaces of the proxy it wraps
+      Class<?>[] wrapped = current == null ? Plugin.getAllInterfaces(type, signatureMap)
+          : Arrays.stream(current).filter(signatureMap::containsKey).toArray(Class<?>[]::new);
+      if (wrapped.length > 0) {
+        applied.add(0, interceptor);
+        signatureMaps.add(0, signatureMap);
+        interfaces.add(0, wrapped);
+        current = wrapped;
+      }
+    }
+    return new PluginChain(applied.toArray(new Interceptor[0]), signatureMaps, interfaces.toArray(new Class<?>[0][]));
+  }
+
+  /**
+   * Wraps a target of the type of this chain.
+   *
+   * @param target
+   *          the target
+   * @return the proxy of the outermost level, or the target itself if no interceptor applies
+   */
+  Object wrap(Object target) {
+    if (interceptors.length == 0) {
+      return target;
+    }
+    return newProxy(target, 0, new Object[interceptors.length]);
+  }
+
+  Object newProxy(Object target, int level, Object[] proxies) {
+    Object proxy = Proxy.newProxyInstance(target.getClass().getClassLoader(), interfaces[level],
+        new Plugin(target, this, level, proxies));
+    proxies[level] = proxy;
+    return proxy;
+  }
+
+  int size() {
+    return interceptors.length;
+  }
+
+  Interceptor getInterceptor(int level) {
+    return interceptors[level];
+  }
+
+  int[] getInterceptingLevels(Method method) {
+    int[] levels = interceptingLevels.get(method);
+    if (levels == null) {
+      levels = interceptingLevels.computeIfAbsent(method, this::findInterceptingLevels);
+    }
+    return levels;
+  }
+
+  private int[] findInterceptingLevels(Method method) {
+    int[] levels = new int[interceptors.length];
+    int count = 0;
+    for (int i = 0; i < interceptors.length; i++) {
+      Set<Method> methods = signatureMaps.get(i).get(method.getDeclaringClass());
+      if (methods != null && methods.contains(method)) {
+        levels[count++] = i;
+      }
+    }
+    return count == 0 ? NO_LEVELS : Arrays.copyOf(levels, count);
+  }
+
+}
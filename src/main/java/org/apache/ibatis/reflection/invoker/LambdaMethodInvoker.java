@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A {@link MethodInvoker} for getters and setters that, once the property has been accessed a few times, calls the
+ * method through a class spun by {@link java.lang.invoke.LambdaMetafactory} instead of {@link Method#invoke}.
+ * <p>
+ * Calls that the generated class cannot handle exactly like reflection would (arguments needing a widening conversion,
+ * targets of another type, members that are not accessible) are delegated to {@link MethodInvoker}.
+ *
+ * @since 3.5.7
+ */
+public class LambdaMethodInvoker extends MethodInvoker {
+
+  static final int GENERATION_THRESHOLD = 16;
+
+  private final Method method;
+  private final Class<?> declaringClass;
+  private final boolean setter;
+  private volatile Function<Object, Object> getter;
+  private volatile BiConsumer<Object, Object> consumer;
+  private int invocations;
+  private volatile boolean unavailable;
+
+  public LambdaMethodInvoker(Method method) {
+    super(method);
+    this.method = method;
+    this.declaringClass = method.getDeclaringClass();
+    this.setter = method.getParameterCount() == 1;
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (!declaringClass.isInstance(target)) {
+      return super.invoke(target, args);
+    }
+    if (setter) {
+      BiConsumer<Object, Object> consumer = this.consumer;
+      if (consumer != null && args != null && args.length == 1 && MemberHandles.isAssignable(getType(), args[0])) {
+        try {
+          consumer.accept(target, args[0]);
+          return null;
+        } catch (Throwable t) {
+          throw new InvocationTargetException(t);
+        }
+      }
+    } else {
+      Function<Object, Object> getter = this.getter;
+      if (getter != null && (args == null || args.length == 0)) {
+        try {
+          return getter.apply(target);
+        } catch (Throwable t) {
+          throw new InvocationTargetException(t);
+        }
+      }
+    }
+    Object result = super.invoke(target, args);
+    if (!unavailable && ++invocations == GENERATION_THRESHOLD) {
+      generate();
+    }
+    return result;
+  }
+
+  boolean isGenerated() {
+    return getter != null || consumer != null;
+  }
+
+  private void generate() {
+    if (setter) {
+      consumer = MemberHandles.setter(method);
+      unavailable = consumer == null;
+    } else {
+      getter = MemberHandles.getter(method);
+      unavailable = getter == null;
+    }
+  }
+
+}
@@ -0,0 +1,186 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.ibatis.lang.UsesJava8;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Creates direct accessors for bean members, so that hot property access does not go through core reflection.
+ * <p>
+ * Every method returns <code>null</code> when the member cannot be accessed this way (e.g. the declaring class is in a
+ * module that is not open to MyBatis or the security manager forbids it); callers then keep using reflection.
+ */
+final class MemberHandles {
+
+  private static final int ALLOWED_MODES = MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.PROTECTED
+      | MethodHandles.Lookup.PACKAGE | MethodHandles.Lookup.PUBLIC;
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+  private static final Constructor<Lookup> lookupConstructor;
+  private static final Method privateLookupInMethod;
+
+  static {
+    Method privateLookupIn;
+    try {
+      privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+    } catch (NoSuchMethodException e) {
+      privateLookupIn = null;
+    }
+    privateLookupInMethod = privateLookupIn;
+
+    Constructor<Lookup> lookup = null;
+    if (privateLookupInMethod == null) {
+      // JDK 1.8
+      try {
+        lookup = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+        lookup.setAccessible(true);
+      } catch (Exception e) {
+        lookup = null;
+      }
+    }
+    lookupConstructor = lookup;
+  }
+
+  private MemberHandles() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Spins a {@link Function} calling the given no-argument instance method.
+   */
+  @UsesJava8
+  @SuppressWarnings("unchecked")
+  static Function<Object, Object> getter(Method method) {
+    if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+        || method.getReturnType() == void.class) {
+      return null;
+    }
+    Lookup lookup = privateLookupIn(method.getDeclaringClass());
+    if (lookup == null) {
+      return null;
+    }
+    try {
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+          GETTER_TYPE, handle, handle.type().wrap());
+      return (Function<Object, Object>) site.getTarget().invoke();
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  /**
+   * Spins a {@link BiConsumer} calling the given one-argument instance method.
+   */
+  @UsesJava8
+  @SuppressWarnings("unchecked")
+  static BiConsumer<Object, Object> setter(Method method) {
+    if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1) {
+      return null;
+    }
+    Lookup lookup = privateLookupIn(method.getDeclaringClass());
+    if (lookup == null) {
+      return null;
+    }
+    try {
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+          SETTER_TYPE, handle, handle.type().wrap().changeReturnType(void.class));
+      return (BiConsumer<Object, Object>) site.getTarget().invoke();
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a handle of type <code>(Object)Object</code> reading the given instance field.
+   */
+  static MethodHandle fieldGetter(Field field) {
+    if (Modifier.isStatic(field.getModifiers())) {
+      return null;
+    }
+    Lookup lookup = privateLookupIn(field.getDeclaringClass());
+    if (lookup == null) {
+      return null;
+    }
+    try {
+      return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+    } catch (IllegalAccessException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a handle of type <code>(Object,Object)void</code> writing the given non-final instance field.
+   */
+  static MethodHandle fieldSetter(Field field) {
+    if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+      return null;
+    }
+    Lookup lookup = privateLookupIn(field.getDeclaringClass());
+    if (lookup == null) {
+      return null;
+    }
+    try {
+      return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    } catch (IllegalAccessException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns whether a value can be passed to a parameter of the given type without any conversion other than unboxing
+   * to the exact primitive type. Values failing this check are left to reflection, which also performs widening and
+   * reports mismatches with its usual exceptions.
+   */
+  static boolean isAssignable(Class<?> parameterType, Object value) {
+    if (parameterType.isPrimitive()) {
+      return value != null && value.getClass() == MethodType.methodType(parameterType).wrap().returnType();
+    }
+    return value == null || parameterType.isInstance(value);
+  }
+
+  private static Lookup privateLookupIn(Class<?> declaringClass) {
+    if (!Reflector.canControlMemberAccessible()) {
+      return null;
+    }
+    try {
+      if (privateLookupInMethod != null) {
+        return (Lookup) privateLookupInMethod.invoke(null, declaringClass, MethodHandles.lookup());
+      } else if (lookupConstructor != null) {
+        return lookupConstructor.newInstance(declaringClass, ALLOWED_MODES);
+      }
+    } catch (Exception e) {
+      // not open to us
+    }
+    return null;
+  }
+
+}
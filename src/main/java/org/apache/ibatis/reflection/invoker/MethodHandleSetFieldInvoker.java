@@ -0,0 +1,68 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+
+import org.apache.ibatis.lang.UsesJava8;
+import org.apache.ibatis.reflection.ReflectionException;
+
+/**
+ * A {@link SetFieldInvoker} that writes the field through a {@link MethodHandle} once it has been accessed a few times.
+ *
+ * @since 3.5.7
+ */
+public class MethodHandleSetFieldInvoker extends SetFieldInvoker {
+
+  private final Field field;
+  private volatile MethodHandle handle;
+  private int invocations;
+  private volatile boolean unavailable;
+
+  public MethodHandleSetFieldInvoker(Field field) {
+    super(field);
+    this.field = field;
+  }
+
+  @UsesJava8
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException {
+    MethodHandle handle = this.handle;
+    if (handle != null && field.getDeclaringClass().isInstance(target)
+        && MemberHandles.isAssignable(field.getType(), args[0])) {
+      try {
+        handle.invokeExact(target, args[0]);
+        return null;
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new ReflectionException(t);
+      }
+    }
+    Object result = super.invoke(target, args);
+    if (handle == null && !unavailable && ++invocations == LambdaMethodInvoker.GENERATION_THRESHOLD) {
+      this.handle = MemberHandles.fieldSetter(field);
+      unavailable = this.handle == null;
+    }
+    return result;
+  }
+
+  boolean isGenerated() {
+    return handle != null;
+  }
+
+}
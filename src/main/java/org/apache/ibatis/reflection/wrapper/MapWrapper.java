@@ -100,6 +100,10 @@ public class MapWrapper extends BaseWrapper {
       } else {
         return metaValue.getGetterType(prop.getChildren());
       }
+    } else if (prop.getIndex() != null) {
+      Object collection = resolveCollection(prop, map);
+      Object value = collection == null ? null : getCollectionValue(prop, collection);
+      return value == null ? Object.class : value.getClass();
     } else {
       if (map.get(name) != null) {
         return map.get(name).getClass();
@@ -0,0 +1,549 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * An expression of the subset of OGNL most dynamic SQL is written in, evaluated without interpreting an OGNL tree.
+ * <p>
+ * The subset covers property paths, the <code>size()</code> and <code>isEmpty()</code> methods, <code>null</code>,
+ * boolean, integer and string literals, comparisons, <code>and</code>, <code>or</code> and <code>not</code>. Property
+ * paths are resolved through the cached {@link Reflector} getters of the classes met at runtime. Whenever a value is
+ * met that OGNL would treat in a way this subset does not model (e.g. comparing numbers of different kinds, or
+ * navigating through <code>null</code>), {@link #getValue(Object)} returns {@link #UNSUPPORTED} and the caller must
+ * evaluate the expression with OGNL.
+ */
+final class CompiledExpression {
+
+  static final Object UNSUPPORTED = new Object();
+
+  private static final ReflectorFactory REFLECTOR_FACTORY = new DefaultReflectorFactory();
+  private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+      "and", "or", "not", "eq", "neq", "lt", "gt", "lte", "gte", "in", "instanceof", "new",
+      "bor", "xor", "band", "shl", "shr", "ushr", "true", "false", "null"));
+
+  private final Node root;
+
+  private CompiledExpression(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Compiles an expression.
+   *
+   * @param expression
+   *          the OGNL expression
+   * @return the compiled expression, or <code>null</code> if the expression is not part of the subset
+   */
+  static CompiledExpression compile(String expression) {
+    Parser parser = new Parser(expression);
+    Node node = parser.parse();
+    return node == null ? null : new CompiledExpression(node);
+  }
+
+  /**
+   * Evaluates the expression.
+   *
+   * @param root
+   *          the root object, usually the bindings of a {@link DynamicContext}
+   * @return the value, or {@link #UNSUPPORTED} if OGNL must evaluate the expression
+   */
+  Object getValue(Object root) {
+    try {
+      return this.root.getValue(root);
+    } catch (RuntimeException e) {
+      // let OGNL report the error
+      return UNSUPPORTED;
+    }
+  }
+
+  private static boolean booleanValue(Object value) {
+    // same as ognl.OgnlOps.booleanValue()
+    if (value == null) {
+      return false;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof Character) {
+      return (Character) value != 0;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue() != 0;
+    }
+    return true;
+  }
+
+  private static boolean isIntegral(Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+
+  private abstract static class Node {
+    abstract Object getValue(Object root);
+  }
+
+  private static class Literal extends Node {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      return value;
+    }
+  }
+
+  private static class Property extends Node {
+    private final Node target;
+    private final String name;
+    private volatile CachedGetter cachedGetter;
+
+    Property(Node target, String name) {
+      this.target = target;
+      this.name = name;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      if (target == null) {
+        return getRootValue(root);
+      }
+      Object object = target.getValue(root);
+      if (object == UNSUPPORTED || object == null) {
+        return UNSUPPORTED;
+      }
+      return getPropertyValue(object);
+    }
+
+    private Object getRootValue(Object root) {
+      if (root instanceof DynamicContext.ContextMap) {
+        // same as DynamicContext.ContextAccessor
+        Map<?, ?> map = (Map<?, ?>) root;
+        Object result = map.get(name);
+        if (result != null || map.containsKey(name)) {
+          return result;
+        }
+        Object parameterObject = map.get(DynamicContext.PARAMETER_OBJECT_KEY);
+        return parameterObject instanceof Map ? ((Map<?, ?>) parameterObject).get(name) : null;
+      }
+      return root == null ? UNSUPPORTED : getPropertyValue(root);
+    }
+
+    private Object getPropertyValue(Object object) {
+      if (object instanceof Map) {
+        // OGNL reads a few names of a map as its properties rather than as keys
+        switch (name) {
+          case "size":
+          case "isEmpty":
+          case "keys":
+          case "keySet":
+          case "values":
+            return UNSUPPORTED;
+          default:
+            return ((Map<?, ?>) object).get(name);
+        }
+      }
+      if (object instanceof Collection || object.getClass().isArray() || object instanceof Class) {
+        return UNSUPPORTED;
+      }
+      Class<?> type = object.getClass();
+      CachedGetter getter = cachedGetter;
+      if (getter == null || getter.type != type) {
+        Reflector reflector = REFLECTOR_FACTORY.findForClass(type);
+        getter = new CachedGetter(type, reflector.hasGetter(name) ? reflector.getGetInvoker(name) : null);
+        cachedGetter = getter;
+      }
+      if (getter.invoker == null) {
+        return UNSUPPORTED;
+      }
+      try {
+        return getter.invoker.invoke(object, null);
+      } catch (Exception e) {
+        return UNSUPPORTED;
+      }
+    }
+  }
+
+  private static class CachedGetter {
+    private final Class<?> type;
+    private final Invoker invoker;
+
+    CachedGetter(Class<?> type, Invoker invoker) {
+      this.type = type;
+      this.invoker = invoker;
+    }
+  }
+
+  private static class MethodCall extends Node {
+    private final Node target;
+    private final boolean size;
+
+    MethodCall(Node target, boolean size) {
+      this.target = target;
+      this.size = size;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object object = target.getValue(root);
+      if (object instanceof Collection) {
+        return size ? (Object) ((Collection<?>) object).size() : (Object) ((Collection<?>) object).isEmpty();
+      }
+      if (object instanceof Map) {
+        return size ? (Object) ((Map<?, ?>) object).size() : (Object) ((Map<?, ?>) object).isEmpty();
+      }
+      if (object instanceof String && !size) {
+        return ((String) object).isEmpty();
+      }
+      return UNSUPPORTED;
+    }
+  }
+
+  private static class Not extends Node {
+    private final Node operand;
+
+    Not(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = operand.getValue(root);
+      if (value == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      return booleanValue(value) ? Boolean.FALSE : Boolean.TRUE;
+    }
+  }
+
+  private static class Logical extends Node {
+    private final List<Node> operands;
+    private final boolean and;
+
+    Logical(List<Node> operands, boolean and) {
+      this.operands = operands;
+      this.and = and;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      // like OGNL, yields the last operand evaluated
+      Object value = null;
+      for (Node operand : operands) {
+        value = operand.getValue(root);
+        if (value == UNSUPPORTED || booleanValue(value) != and) {
+          break;
+        }
+      }
+      return value;
+    }
+  }
+
+  private static class Comparison extends Node {
+    private final Node left;
+    private final Node right;
+    private final String operator;
+
+    Comparison(Node left, String operator, Node right) {
+      this.left = left;
+      this.operator = operator;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object leftValue = left.getValue(root);
+      if (leftValue == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      Object rightValue = right.getValue(root);
+      if (rightValue == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      if ("==".equals(operator) || "!=".equals(operator)) {
+        Boolean equal = isEqual(leftValue, rightValue);
+        if (equal == null) {
+          return UNSUPPORTED;
+        }
+        return equal == "==".equals(operator);
+      }
+      if (!isIntegral(leftValue) || !isIntegral(rightValue)) {
+        return UNSUPPORTED;
+      }
+      int result = Long.compare(((Number) leftValue).longValue(), ((Number) rightValue).longValue());
+      switch (operator) {
+        case "<":
+          return result < 0;
+        case ">":
+          return result > 0;
+        case "<=":
+          return result <= 0;
+        default:
+          return result >= 0;
+      }
+    }
+
+    private static Boolean isEqual(Object leftValue, Object rightValue) {
+      if (leftValue == null || rightValue == null) {
+        return leftValue == rightValue;
+      }
+      if (isIntegral(leftValue) && isIntegral(rightValue)) {
+        return ((Number) leftValue).longValue() == ((Number) rightValue).longValue();
+      }
+      if (leftValue instanceof String && rightValue instanceof String
+          || leftValue instanceof Boolean && rightValue instanceof Boolean) {
+        return leftValue.equals(rightValue);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * A recursive descent parser of the subset, returning <code>null</code> as soon as it meets anything else.
+   */
+  private static class Parser {
+    private final String expression;
+    private int position;
+
+    Parser(String expression) {
+      this.expression = expression;
+    }
+
+    Node parse() {
+      Node node = parseOr();
+      skipWhitespace();
+      return position == expression.length() ? node : null;
+    }
+
+    private Node parseOr() {
+      return parseLogical(false);
+    }
+
+    private Node parseAnd() {
+      return parseLogical(true);
+    }
+
+    private Node parseLogical(boolean and) {
+      Node first = and ? parseComparison() : parseAnd();
+      if (first == null) {
+        return null;
+      }
+      List<Node> operands = null;
+      while (acceptOperator(and ? "&&" : "||") || acceptWord(and ? "and" : "or")) {
+        Node next = and ? parseComparison() : parseAnd();
+        if (next == null) {
+          return null;
+        }
+        if (operands == null) {
+          operands = new ArrayList<>();
+          operands.add(first);
+        }
+        operands.add(next);
+      }
+      return operands == null ? first : new Logical(operands, and);
+    }
+
+    private Node parseComparison() {
+      Node left = parseUnary();
+      if (left == null) {
+        return null;
+      }
+      String operator = parseComparisonOperator();
+      if (operator == null) {
+        return left;
+      }
+      Node right = parseUnary();
+      if (right == null || parseComparisonOperator() != null) {
+        // chained comparisons are left to OGNL
+        return null;
+      }
+      return new Comparison(left, operator, right);
+    }
+
+    private String parseComparisonOperator() {
+      if (acceptOperator("==") || acceptWord("eq")) {
+        return "==";
+      } else if (acceptOperator("!=") || acceptWord("neq")) {
+        return "!=";
+      } else if (acceptOperator("<=") || acceptWord("lte")) {
+        return "<=";
+      } else if (acceptOperator(">=") || acceptWord("gte")) {
+        return ">=";
+      } else if (acceptOperator("<") || acceptWord("lt")) {
+        return "<";
+      } else if (acceptOperator(">") || acceptWord("gt")) {
+        return ">";
+      }
+      return null;
+    }
+
+    private Node parseUnary() {
+      if (acceptOperator("!") || acceptWord("not")) {
+        Node operand = parseUnary();
+        return operand == null ? null : new Not(operand);
+      }
+      return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+      skipWhitespace();
+      if (position >= expression.length()) {
+        return null;
+      }
+      char c = expression.charAt(position);
+      if (c == '(') {
+        position++;
+        Node node = parseOr();
+        return node != null && acceptOperator(")") ? node : null;
+      }
+      if (c == '\'' || c == '"') {
+        return parseString(c);
+      }
+      if (Character.isDigit(c)) {
+        return parseInteger();
+      }
+      String word = parseIdentifier();
+      if (word == null) {
+        return null;
+      }
+      switch (word) {
+        case "null":
+          return new Literal(null);
+        case "true":
+          return new Literal(Boolean.TRUE);
+        case "false":
+          return new Literal(Boolean.FALSE);
+        default:
+          if (RESERVED_WORDS.contains(word)) {
+            return null;
+          }
+          return parsePath(new Property(null, word));
+      }
+    }
+
+    private Node parsePath(Node root) {
+      Node node = root;
+      while (position < expression.length() && expression.charAt(position) == '.') {
+        position++;
+        String name = parseIdentifier();
+        if (name == null || RESERVED_WORDS.contains(name)) {
+          return null;
+        }
+        if (position < expression.length() && expression.charAt(position) == '(') {
+          if (!expression.startsWith("()", position) || !("size".equals(name) || "isEmpty".equals(name))) {
+            return null;
+          }
+          position += 2;
+          node = new MethodCall(node, "size".equals(name));
+        } else {
+          node = new Property(node, name);
+        }
+      }
+      if (position < expression.length() && (expression.charAt(position) == '(' || expression.charAt(position) == '[')) {
+        return null;
+      }
+      return node;
+    }
+
+    private Node parseString(char quote) {
+      int end = expression.indexOf(quote, position + 1);
+      if (end < 0) {
+        return null;
+      }
+      String value = expression.substring(position + 1, end);
+      // a single quoted character is a Character to OGNL
+      if (value.indexOf('\\') >= 0 || quote == '\'' && value.length() == 1) {
+        return null;
+      }
+      position = end + 1;
+      return new Literal(value);
+    }
+
+    private Node parseInteger() {
+      int start = position;
+      while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+        position++;
+      }
+      if (position < expression.length() && (Character.isLetterOrDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+        // decimals, suffixes and hexadecimals are left to OGNL
+        return null;
+      }
+      String digits = expression.substring(start, position);
+      if (digits.length() > 1 && digits.charAt(0) == '0' || digits.length() > 9) {
+        return null;
+      }
+      return new Literal(Integer.valueOf(digits));
+    }
+
+    private String parseIdentifier() {
+      if (position >= expression.length() || !Character.isJavaIdentifierStart(expression.charAt(position))) {
+        return null;
+      }
+      int start = position;
+      while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+        position++;
+      }
+      return expression.substring(start, position);
+    }
+
+    private boolean acceptOperator(String operator) {
+      skipWhitespace();
+      if (expression.startsWith(operator, position)) {
+        int end = position + operator.length();
+        // do not read "<" of "<=", or "!" of "!="
+        if (operator.length() == 1 && end < expression.length() && "=&|".indexOf(expression.charAt(end)) >= 0
+            && operator.charAt(0) != '(' && operator.charAt(0) != ')') {
+          return false;
+        }
+        position = end;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean acceptWord(String word) {
+      skipWhitespace();
+      int end = position + word.length();
+      if (expression.startsWith(word, position)
+          && (end == expression.length() || !Character.isJavaIdentifierPart(expression.charAt(end)))) {
+        position = end;
+        return true;
+      }
+      return false;
+    }
+
+    private void skipWhitespace() {
+      while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+        position++;
+      }
+    }
+  }
+
+}
@@ -17,7 +17,6 @@ package org.apache.ibatis.scripting.xmltags;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.StringJoiner;
 
 import ognl.OgnlContext;
 import ognl.OgnlRuntime;
@@ -39,10 +38,30 @@ public class DynamicContext {
   }
 
   private final ContextMap bindings;
-  private final StringJoiner sqlBuilder = new StringJoiner(" ");
+  private final StringBuilder sqlBuilder;
+  private final DynamicContext root;
+  private boolean empty = true;
   private int uniqueNumber = 0;
+  private int partition = -1;
+  private int partitionCount = 0;
 
   public DynamicContext(Configuration configuration, Object parameterObject) {
+    this(configuration, parameterObject, 16);
+  }
+
+  /**
+   * Creates a context whose SQL buffer is presized, e.g. to the length of the SQL the same nodes rendered last.
+   *
+   * @param configuration
+   *          the configuration
+   * @param parameterObject
+   *          the parameter object
+   * @param sqlCapacity
+   *          the initial capacity of the SQL buffer
+   */
+  DynamicContext(Configuration configuration, Object parameterObject, int sqlCapacity) {
+    this.sqlBuilder = new StringBuilder(sqlCapacity);
+    this.root = this;
     if (parameterObject != null && !(parameterObject instanceof Map)) {
       MetaObject metaObject = configuration.newMetaObject(parameterObject);
       boolean existsTypeHandler = configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass());
@@ -54,6 +73,18 @@ public class DynamicContext {
     bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
   }
 
+  /**
+   * Creates a context that forwards to another one, sharing its bindings.
+   *
+   * @param delegate
+   *          the context to forward to
+   */
+  DynamicContext(DynamicContext delegate) {
+    this.bindings = delegate.bindings;
+    this.sqlBuilder = null;
+    this.root = delegate.root;
+  }
+
   public Map<String, Object> getBindings() {
     return bindings;
   }
@@ -63,7 +94,13 @@ public class DynamicContext {
   }
 
   public void appendSql(String sql) {
-    sqlBuilder.add(sql);
+    // fragments are joined with a space
+    if (empty) {
+      empty = false;
+    } else {
+      sqlBuilder.append(' ');
+    }
+    sqlBuilder.append(sql);
   }
 
   public String getSql() {
@@ -74,6 +111,35 @@ public class DynamicContext {
     return uniqueNumber++;
   }
 
+  /**
+   * Returns the part of a split collection to render.
+   *
+   * @return the index of the partition, or -1 to render whole collections
+   */
+  int getPartition() {
+    return root.partition;
+  }
+
+  void setPartition(int partition) {
+    root.partition = partition;
+  }
+
+  /**
+   * Tells that a collection is too large for a single statement and must be rendered in <code>count</code> partitions.
+   * {@link XMLScriptBuilder} allows a single foreach with a splitSize per statement, outside of any other foreach, so
+   * this is called at most once per rendering.
+   *
+   * @param count
+   *          the number of partitions
+   */
+  void requestPartitions(int count) {
+    root.partitionCount = count;
+  }
+
+  int getPartitionCount() {
+    return root.partitionCount;
+  }
+
   static class ContextMap extends HashMap<String, Object> {
     private static final long serialVersionUID = 2977601501966151582L;
     private final MetaObject parameterMetaObject;
@@ -15,9 +15,17 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -25,24 +33,124 @@ import org.apache.ibatis.session.Configuration;
  */
 public class DynamicSqlSource implements SqlSource {
 
+  // distinct SQL texts a statement keeps parsed, e.g. one per number of items of a foreach
+  private static final int MAX_PARSED_SQL = 64;
+
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  // read without locking by every execution of the statement; rarely rendered texts are evicted first
+  private final Cache parsedSqlCache;
+  // length of the last rendered SQL, to presize the buffer of the next one; a stale value only costs a resize
+  private int lastSqlLength = 16;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
     this.rootSqlNode = rootSqlNode;
+    TinyLfuCache cache = new TinyLfuCache(DynamicSqlSource.class.getName());
+    cache.setSize(MAX_PARSED_SQL);
+    this.parsedSqlCache = cache;
   }
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
-    DynamicContext context = new DynamicContext(configuration, parameterObject);
+    // a foreach larger than its splitSize renders its first part, and tells how many parts there are
+    DynamicContext context = new DynamicContext(configuration, parameterObject, lastSqlLength);
+    context.setPartition(0);
+    BoundSql boundSql = getBoundSql(context, parameterObject);
+    int partitionCount = context.getPartitionCount();
+    if (partitionCount > 1) {
+      List<BoundSql> partitions = new ArrayList<>(partitionCount);
+      partitions.add(boundSql);
+      for (int i = 1; i < partitionCount; i++) {
+        DynamicContext partitionContext = new DynamicContext(configuration, parameterObject, lastSqlLength);
+        partitionContext.setPartition(i);
+        partitions.add(getBoundSql(partitionContext, parameterObject));
+      }
+      boundSql.setPartitions(partitions);
+    }
+    return boundSql;
+  }
+
+  private BoundSql getBoundSql(DynamicContext context, Object parameterObject) {
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    String sql = context.getSql();
+    lastSqlLength = sql.length();
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
+    SqlSource sqlSource = parse(sql, parameterType, context.getBindings());
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     context.getBindings().forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
+  private SqlSource parse(String sql, Class<?> parameterType, Map<String, Object> bindings) {
+    ParsedSql parsedSql = (ParsedSql) parsedSqlCache.getObject(sql);
+    if (parsedSql != null && parsedSql.matches(configuration, parameterType, bindings)) {
+      return parsedSql.sqlSource;
+    }
+    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    SqlSource sqlSource = sqlSourceParser.parse(sql, parameterType, bindings);
+    parsedSqlCache.putObject(sql, new ParsedSql(configuration, sqlSource, parameterType, bindings));
+    return sqlSource;
+  }
+
+  /**
+   * A parsed SQL text with the types its parameter mappings were resolved from. A parameter bound while applying the
+   * SQL nodes (e.g. a foreach item) takes the type of its value, which may differ from one execution to the next.
+   */
+  private static class ParsedSql {
+    private final SqlSource sqlSource;
+    private final Class<?> parameterType;
+    private final String[] properties;
+    private final Class<?>[] bindingTypes;
+
+    ParsedSql(Configuration configuration, SqlSource sqlSource, Class<?> parameterType, Map<String, Object> bindings) {
+      this.sqlSource = sqlSource;
+      this.parameterType = parameterType;
+      List<ParameterMapping> parameterMappings = sqlSource.getBoundSql(null).getParameterMappings();
+      this.properties = new String[parameterMappings.size()];
+      for (int i = 0; i < properties.length; i++) {
+        properties[i] = parameterMappings.get(i).getProperty();
+      }
+      this.bindingTypes = getBindingTypes(configuration, properties, bindings);
+    }
+
+    boolean matches(Configuration configuration, Class<?> parameterType, Map<String, Object> bindings) {
+      if (!this.parameterType.equals(parameterType)) {
+        return false;
+      }
+      Class<?>[] types = getBindingTypes(configuration, properties, bindings);
+      for (int i = 0; i < types.length; i++) {
+        if (types[i] != bindingTypes[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static Class<?>[] getBindingTypes(Configuration configuration, String[] properties, Map<String, Object> bindings) {
+      final Class<?>[] types = new Class<?>[properties.length];
+      MetaObject metaBindings = null;
+      for (int i = 0; i < properties.length; i++) {
+        String property = properties[i];
+        if (property == null) {
+          continue;
+        }
+        int end = 0;
+        while (end < property.length() && property.charAt(end) != '.' && property.charAt(end) != '[') {
+          end++;
+        }
+        if (!bindings.containsKey(property.substring(0, end))) {
+          continue;
+        }
+        if (metaBindings == null) {
+          metaBindings = configuration.newMetaObject(bindings);
+        }
+        if (metaBindings.hasGetter(property)) {
+          types[i] = metaBindings.getGetterType(property);
+        }
+      }
+      return types;
+    }
+  }
+
 }
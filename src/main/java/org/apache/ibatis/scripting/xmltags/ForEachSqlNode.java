@@ -15,7 +15,12 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.session.Configuration;
@@ -34,9 +39,24 @@ public class ForEachSqlNode implements SqlNode {
   private final String separator;
   private final String item;
   private final String index;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
+  private final String[] indexedTemplate;
+  private final int splitSize;
   private final Configuration configuration;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, 0);
+  }
+
+  /**
+   * Creates a foreach that can be split in parts of <code>splitSize</code> elements. A statement whose collection
+   * holds more elements renders its first part, and its {@link org.apache.ibatis.mapping.BoundSql#getPartitions()
+   * partitions} render one part each.
+   *
+   * @since 3.5.7
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator, int splitSize) {
     this.evaluator = new ExpressionEvaluator();
     this.collectionExpression = collectionExpression;
     this.contents = contents;
@@ -45,20 +65,46 @@ public class ForEachSqlNode implements SqlNode {
     this.separator = separator;
     this.index = index;
     this.item = item;
+    this.itemPattern = itemPattern(item);
+    this.indexPattern = index == null ? null : itemPattern(index);
+    this.indexedTemplate = indexedTemplate(contents, item);
+    this.splitSize = splitSize;
     this.configuration = configuration;
   }
 
   @Override
   public boolean apply(DynamicContext context) {
     Map<String, Object> bindings = context.getBindings();
-    final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
+    Object collection = OgnlCache.getValue(collectionExpression, bindings);
+    if (indexedTemplate != null) {
+      int size = indexedSize(collection);
+      if (size >= 0) {
+        int from = partitionStart(context, size);
+        applyIndexed(context, collection, from, partitionEnd(context, from, size));
+        return true;
+      }
+    }
+    final Iterable<?> iterable = evaluator.toIterable(collectionExpression, collection);
     if (!iterable.iterator().hasNext()) {
       return true;
     }
+    int from = 0;
+    int to = Integer.MAX_VALUE;
+    if (splitSize > 0) {
+      int size = size(iterable);
+      from = partitionStart(context, size);
+      to = partitionEnd(context, from, size);
+    }
     boolean first = true;
     applyOpen(context);
     int i = 0;
     for (Object o : iterable) {
+      if (i < from) {
+        i++;
+        continue;
+      } else if (i >= to) {
+        break;
+      }
       DynamicContext oldContext = context;
       if (first || separator == null) {
         context = new PrefixedContext(context, "");
@@ -76,7 +122,7 @@ public class ForEachSqlNode implements SqlNode {
         applyIndex(context, i, uniqueNumber);
         applyItem(context, o, uniqueNumber);
       }
-      contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
+      contents.apply(new FilteredDynamicContext(context, index, item, uniqueNumber));
       if (first) {
         first = !((PrefixedContext) context).isPrefixApplied();
       }
@@ -89,6 +135,125 @@ public class ForEachSqlNode implements SqlNode {
     return true;
   }
 
+  /**
+   * Renders a body that only refers to the item with a single placeholder. The collection is bound once and every
+   * element is referenced by its position (e.g. <code>#{__frch_id_0[2]}</code>), so neither the elements of a
+   * primitive array are copied into a list nor is each element bound under its own name.
+   */
+  private void applyIndexed(DynamicContext context, Object collection, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    String name = itemizeItem(item, context.getUniqueNumber());
+    context.bind(name, collection);
+    applyOpen(context);
+    StringBuilder element = new StringBuilder(indexedTemplate[0].length() + name.length() + indexedTemplate[1].length() + 8);
+    element.append(indexedTemplate[0]).append(name).append('[');
+    int elementPrefixLength = element.length();
+    for (int i = from; i < to; i++) {
+      context.appendSql(i == from || separator == null ? "" : separator);
+      element.setLength(elementPrefixLength);
+      context.appendSql(element.append(i).append(']').append(indexedTemplate[1]).toString());
+    }
+    applyClose(context);
+    context.getBindings().remove(item);
+    context.getBindings().remove(index);
+  }
+
+  /**
+   * Returns the index of the first element to render, and tells the context how many partitions the collection could
+   * be split in.
+   */
+  private int partitionStart(DynamicContext context, int size) {
+    if (splitSize <= 0 || size <= splitSize) {
+      return 0;
+    }
+    int partition = context.getPartition();
+    context.requestPartitions((size + splitSize - 1) / splitSize);
+    return partition < 0 ? 0 : partition * splitSize;
+  }
+
+  private int partitionEnd(DynamicContext context, int from, int size) {
+    if (splitSize <= 0 || size <= splitSize || context.getPartition() < 0) {
+      return size;
+    }
+    return Math.min(size, from + splitSize);
+  }
+
+  private static int size(Iterable<?> iterable) {
+    if (iterable instanceof Collection) {
+      return ((Collection<?>) iterable).size();
+    }
+    int size = 0;
+    for (Object o : iterable) {
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of elements of a collection whose elements can be referenced by position, or -1.
+   */
+  private static int indexedSize(Object collection) {
+    if (collection instanceof List && collection instanceof RandomAccess) {
+      List<?> list = (List<?>) collection;
+      for (Object element : list) {
+        if (element instanceof Map.Entry) {
+          return -1;
+        }
+      }
+      return list.size();
+    } else if (collection instanceof Object[]) {
+      Object[] array = (Object[]) collection;
+      for (Object element : array) {
+        if (element instanceof Map.Entry) {
+          return -1;
+        }
+      }
+      return array.length;
+    } else if (collection != null && collection.getClass().isArray()) {
+      return Array.getLength(collection);
+    }
+    return -1;
+  }
+
+  /**
+   * Splits a body of static text with a single placeholder of the item around the item name, e.g.
+   * <code>#{id,jdbcType=INTEGER}</code> into <code>#{</code> and <code>,jdbcType=INTEGER}</code>.
+   *
+   * @return the text before and after the item name, or <code>null</code> if the body is anything else
+   */
+  private static String[] indexedTemplate(SqlNode contents, String item) {
+    if (item == null) {
+      return null;
+    }
+    if (contents instanceof MixedSqlNode && ((MixedSqlNode) contents).getContents().size() == 1) {
+      contents = ((MixedSqlNode) contents).getContents().get(0);
+    }
+    if (!(contents instanceof StaticTextSqlNode)) {
+      return null;
+    }
+    String text = ((StaticTextSqlNode) contents).getText();
+    int start = text.indexOf("#{");
+    int end = start < 0 ? -1 : text.indexOf('}', start);
+    if (end < 0 || text.indexOf("#{", end) >= 0 || text.indexOf('\\') >= 0) {
+      return null;
+    }
+    int itemStart = start + 2;
+    while (itemStart < end && Character.isWhitespace(text.charAt(itemStart))) {
+      itemStart++;
+    }
+    if (!text.startsWith(item, itemStart)) {
+      return null;
+    }
+    String rest = text.substring(itemStart + item.length());
+    String attributes = text.substring(itemStart + item.length(), end).trim();
+    if (!attributes.isEmpty() && attributes.charAt(0) != ',') {
+      return null;
+    }
+    return new String[] { text.substring(0, start + 2), rest };
+  }
+
   private void applyIndex(DynamicContext context, Object o, int i) {
     if (index != null) {
       context.bind(index, o);
@@ -119,18 +284,24 @@ public class ForEachSqlNode implements SqlNode {
     return ITEM_PREFIX + item + "_" + i;
   }
 
-  private static class FilteredDynamicContext extends DynamicContext {
+  private static Pattern itemPattern(String item) {
+    return Pattern.compile("^\\s*" + item + "(?![^.,:\\s])");
+  }
+
+  private class FilteredDynamicContext extends DynamicContext {
     private final DynamicContext delegate;
-    private final int index;
-    private final String itemIndex;
-    private final String item;
+    private final GenericTokenParser parser;
 
-    public FilteredDynamicContext(Configuration configuration,DynamicContext delegate, String itemIndex, String item, int i) {
-      super(configuration, null);
+    public FilteredDynamicContext(DynamicContext delegate, String itemIndex, String item, int i) {
+      super(delegate);
       this.delegate = delegate;
-      this.index = i;
-      this.itemIndex = itemIndex;
-      this.item = item;
+      this.parser = new GenericTokenParser("#{", "}", content -> {
+        String newContent = itemPattern.matcher(content).replaceFirst(itemizeItem(item, i));
+        if (itemIndex != null && newContent.equals(content)) {
+          newContent = indexPattern.matcher(content).replaceFirst(itemizeItem(itemIndex, i));
+        }
+        return "#{" + newContent + "}";
+      });
     }
 
     @Override
@@ -150,14 +321,6 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
-        String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
-        if (itemIndex != null && newContent.equals(content)) {
-          newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
-        }
-        return "#{" + newContent + "}";
-      });
-
       delegate.appendSql(parser.parse(sql));
     }
 
@@ -175,7 +338,7 @@ public class ForEachSqlNode implements SqlNode {
     private boolean prefixApplied;
 
     public PrefixedContext(DynamicContext delegate, String prefix) {
-      super(configuration, null);
+      super(delegate);
       this.delegate = delegate;
       this.prefix = prefix;
       this.prefixApplied = false;
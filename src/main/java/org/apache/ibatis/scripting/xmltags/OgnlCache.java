@@ -24,7 +24,8 @@ import ognl.OgnlException;
 import org.apache.ibatis.builder.BuilderException;
 
 /**
- * Caches OGNL parsed expressions.
+ * Caches OGNL parsed expressions. Expressions of the subset handled by {@link CompiledExpression} are evaluated
+ * without OGNL.
  *
  * @author Eduardo Macarron
  *
@@ -35,12 +36,25 @@ public final class OgnlCache {
   private static final OgnlMemberAccess MEMBER_ACCESS = new OgnlMemberAccess();
   private static final OgnlClassResolver CLASS_RESOLVER = new OgnlClassResolver();
   private static final Map<String, Object> expressionCache = new ConcurrentHashMap<>();
+  private static final Map<String, Object> compiledExpressionCache = new ConcurrentHashMap<>();
+  private static final Object NOT_COMPILED = new Object();
 
   private OgnlCache() {
     // Prevent Instantiation of Static Class
   }
 
   public static Object getValue(String expression, Object root) {
+    Object compiled = compiledExpressionCache.get(expression);
+    if (compiled == null) {
+      compiled = compile(expression);
+      compiledExpressionCache.put(expression, compiled);
+    }
+    if (compiled != NOT_COMPILED) {
+      Object value = ((CompiledExpression) compiled).getValue(root);
+      if (value != CompiledExpression.UNSUPPORTED) {
+        return value;
+      }
+    }
     try {
       Map context = Ognl.createDefaultContext(root, MEMBER_ACCESS, CLASS_RESOLVER, null);
       return Ognl.getValue(parseExpression(expression), context, root);
@@ -49,6 +63,11 @@ public final class OgnlCache {
     }
   }
 
+  private static Object compile(String expression) {
+    CompiledExpression compiled = CompiledExpression.compile(expression);
+    return compiled == null ? NOT_COMPILED : compiled;
+  }
+
   private static Object parseExpression(String expression) throws OgnlException {
     Object node = expressionCache.get(expression);
     if (node == null) {
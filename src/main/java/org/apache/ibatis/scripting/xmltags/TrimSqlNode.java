@@ -71,26 +71,115 @@ public class TrimSqlNode implements SqlNode {
 
   private class FilteredDynamicContext extends DynamicContext {
     private DynamicContext delegate;
-    private boolean prefixApplied;
-    private boolean suffixApplied;
-    private StringBuilder sqlBuffer;
+    private final StringBuilder sqlBuffer;
 
     public FilteredDynamicContext(DynamicContext delegate) {
-      super(configuration, null);
+      super(delegate);
       this.delegate = delegate;
-      this.prefixApplied = false;
-      this.suffixApplied = false;
       this.sqlBuffer = new StringBuilder();
     }
 
     public void applyAll() {
-      sqlBuffer = new StringBuilder(sqlBuffer.toString().trim());
-      String trimmedUppercaseSql = sqlBuffer.toString().toUpperCase(Locale.ENGLISH);
-      if (trimmedUppercaseSql.length() > 0) {
-        applyPrefix(sqlBuffer, trimmedUppercaseSql);
-        applySuffix(sqlBuffer, trimmedUppercaseSql);
+      int start = 0;
+      int end = sqlBuffer.length();
+      // same as String.trim()
+      while (start < end && sqlBuffer.charAt(start) <= ' ') {
+        start++;
       }
-      delegate.appendSql(sqlBuffer.toString());
+      while (start < end && sqlBuffer.charAt(end - 1) <= ' ') {
+        end--;
+      }
+      if (start == end) {
+        delegate.appendSql("");
+        return;
+      }
+      String trimmedUppercaseSql = null;
+      if (!isAscii(sqlBuffer, start, end)) {
+        // upper casing may change the length of the text, keep comparing with the upper cased text
+        trimmedUppercaseSql = sqlBuffer.substring(start, end).toUpperCase(Locale.ENGLISH);
+      }
+      String prefixToRemove = trimmedUppercaseSql == null ? findPrefixToRemove(start, end) : findPrefixToRemove(trimmedUppercaseSql);
+      String suffixToRemove = trimmedUppercaseSql == null ? findSuffixToRemove(start, end) : findSuffixToRemove(trimmedUppercaseSql);
+      StringBuilder sql = new StringBuilder(end - start + (prefix == null ? 0 : prefix.length() + 1) + (suffix == null ? 0 : suffix.length() + 1));
+      if (prefix != null) {
+        sql.append(prefix).append(' ');
+      }
+      sql.append(sqlBuffer, prefixToRemove == null ? start : Math.min(start + prefixToRemove.trim().length(), end), end);
+      if (suffixToRemove != null) {
+        sql.delete(sql.length() - suffixToRemove.trim().length(), sql.length());
+      }
+      if (suffix != null) {
+        sql.append(' ').append(suffix);
+      }
+      delegate.appendSql(sql.toString());
+    }
+
+    private String findPrefixToRemove(int start, int end) {
+      if (prefixesToOverride != null) {
+        for (String toRemove : prefixesToOverride) {
+          if (regionMatchesUppercase(start, end, start, toRemove)) {
+            return toRemove;
+          }
+        }
+      }
+      return null;
+    }
+
+    private String findSuffixToRemove(int start, int end) {
+      if (suffixesToOverride != null) {
+        for (String toRemove : suffixesToOverride) {
+          String trimmed = toRemove.trim();
+          if (regionMatchesUppercase(start, end, end - toRemove.length(), toRemove)
+              || regionMatchesUppercase(start, end, end - trimmed.length(), trimmed)) {
+            return toRemove;
+          }
+        }
+      }
+      return null;
+    }
+
+    private String findPrefixToRemove(String trimmedUppercaseSql) {
+      if (prefixesToOverride != null) {
+        for (String toRemove : prefixesToOverride) {
+          if (trimmedUppercaseSql.startsWith(toRemove)) {
+            return toRemove;
+          }
+        }
+      }
+      return null;
+    }
+
+    private String findSuffixToRemove(String trimmedUppercaseSql) {
+      if (suffixesToOverride != null) {
+        for (String toRemove : suffixesToOverride) {
+          if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
+            return toRemove;
+          }
+        }
+      }
+      return null;
+    }
+
+    private boolean regionMatchesUppercase(int start, int end, int offset, String uppercase) {
+      if (offset < start || offset + uppercase.length() > end) {
+        return false;
+      }
+      for (int i = 0; i < uppercase.length(); i++) {
+        char c = sqlBuffer.charAt(offset + i);
+        if ((c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c) != uppercase.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isAscii(CharSequence sql, int start, int end) {
+      for (int i = start; i < end; i++) {
+        if (sql.charAt(i) >= 128) {
+          return false;
+        }
+      }
+      return true;
     }
 
     @Override
@@ -118,44 +207,6 @@ public class TrimSqlNode implements SqlNode {
       return delegate.getSql();
     }
 
-    private void applyPrefix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!prefixApplied) {
-        prefixApplied = true;
-        if (prefixesToOverride != null) {
-          for (String toRemove : prefixesToOverride) {
-            if (trimmedUppercaseSql.startsWith(toRemove)) {
-              sql.delete(0, toRemove.trim().length());
-              break;
-            }
-          }
-        }
-        if (prefix != null) {
-          sql.insert(0, " ");
-          sql.insert(0, prefix);
-        }
-      }
-    }
-
-    private void applySuffix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!suffixApplied) {
-        suffixApplied = true;
-        if (suffixesToOverride != null) {
-          for (String toRemove : suffixesToOverride) {
-            if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
-              int start = sql.length() - toRemove.trim().length();
-              int end = sql.length();
-              sql.delete(start, end);
-              break;
-            }
-          }
-        }
-        if (suffix != null) {
-          sql.append(" ");
-          sql.append(suffix);
-        }
-      }
-    }
-
   }
 
 }
@@ -38,6 +38,11 @@ public class XMLScriptBuilder extends BaseBuilder {
   private boolean isDynamic;
   private final Class<?> parameterType;
   private final Map<String, NodeHandler> nodeHandlerMap = new HashMap<>();
+  // how the text of the nodes being parsed reaches the SQL, see addStaticText()
+  private boolean textConcatenated;
+  private boolean textInForEach;
+  private boolean inForEach;
+  private boolean splitForEachParsed;
 
   public XMLScriptBuilder(Configuration configuration, XNode context) {
     this(configuration, context, null);
@@ -75,30 +80,71 @@ public class XMLScriptBuilder extends BaseBuilder {
   }
 
   protected MixedSqlNode parseDynamicTags(XNode node) {
-    List<SqlNode> contents = new ArrayList<>();
-    NodeList children = node.getNode().getChildNodes();
-    for (int i = 0; i < children.getLength(); i++) {
-      XNode child = node.newXNode(children.item(i));
-      if (child.getNode().getNodeType() == Node.CDATA_SECTION_NODE || child.getNode().getNodeType() == Node.TEXT_NODE) {
-        String data = child.getStringBody("");
-        TextSqlNode textSqlNode = new TextSqlNode(data);
-        if (textSqlNode.isDynamic()) {
-          contents.add(textSqlNode);
+    final boolean parentTextConcatenated = textConcatenated;
+    final boolean parentTextInForEach = textInForEach;
+    final boolean parentInForEach = inForEach;
+    switch (node.getName()) {
+      case "trim":
+      case "where":
+      case "set":
+        // buffered and trimmed as a whole
+        textConcatenated = true;
+        textInForEach = false;
+        break;
+      case "foreach":
+        textInForEach = true;
+        inForEach = true;
+        break;
+      default:
+        break;
+    }
+    try {
+      List<SqlNode> contents = new ArrayList<>();
+      NodeList children = node.getNode().getChildNodes();
+      for (int i = 0; i < children.getLength(); i++) {
+        XNode child = node.newXNode(children.item(i));
+        if (child.getNode().getNodeType() == Node.CDATA_SECTION_NODE || child.getNode().getNodeType() == Node.TEXT_NODE) {
+          String data = child.getStringBody("");
+          TextSqlNode textSqlNode = new TextSqlNode(data);
+          if (textSqlNode.isDynamic()) {
+            contents.add(textSqlNode);
+            isDynamic = true;
+          } else {
+            addStaticText(contents, data);
+          }
+        } else if (child.getNode().getNodeType() == Node.ELEMENT_NODE) { // issue #628
+          String nodeName = child.getNode().getNodeName();
+          NodeHandler handler = nodeHandlerMap.get(nodeName);
+          if (handler == null) {
+            throw new BuilderException("Unknown element <" + nodeName + "> in SQL statement.");
+          }
+          handler.handleNode(child, contents);
           isDynamic = true;
-        } else {
-          contents.add(new StaticTextSqlNode(data));
-        }
-      } else if (child.getNode().getNodeType() == Node.ELEMENT_NODE) { // issue #628
-        String nodeName = child.getNode().getNodeName();
-        NodeHandler handler = nodeHandlerMap.get(nodeName);
-        if (handler == null) {
-          throw new BuilderException("Unknown element <" + nodeName + "> in SQL statement.");
         }
-        handler.handleNode(child, contents);
-        isDynamic = true;
       }
+      return new MixedSqlNode(contents);
+    } finally {
+      textConcatenated = parentTextConcatenated;
+      textInForEach = parentTextInForEach;
+      inForEach = parentInForEach;
     }
-    return new MixedSqlNode(contents);
+  }
+
+  /**
+   * Adds a static text, merged with the static text added just before when both would always be appended to the SQL
+   * one after the other: joined with a space by a {@link DynamicContext}, or concatenated inside a trim node.
+   */
+  private void addStaticText(List<SqlNode> contents, String text) {
+    int last = contents.size() - 1;
+    if (last >= 0 && contents.get(last) instanceof StaticTextSqlNode) {
+      String previous = ((StaticTextSqlNode) contents.get(last)).getText();
+      // a foreach adds its separator before the first text that is not blank, and replaces the item in each text
+      if (!textInForEach || previous.trim().length() > 0 && previous.lastIndexOf("#{") <= previous.lastIndexOf('}')) {
+        contents.set(last, new StaticTextSqlNode(textConcatenated ? previous + text : previous + " " + text));
+        return;
+      }
+    }
+    contents.add(new StaticTextSqlNode(text));
   }
 
   private interface NodeHandler {
@@ -169,6 +215,17 @@ public class XMLScriptBuilder extends BaseBuilder {
 
     @Override
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
+      int splitSize = nodeToHandle.getIntAttribute("splitSize", 0);
+      if (splitSize > 0) {
+        // the statement is rendered once per part of the split collection
+        if (inForEach) {
+          throw new BuilderException("A foreach with a splitSize cannot be nested in another foreach.");
+        }
+        if (splitForEachParsed) {
+          throw new BuilderException("Only one foreach with a splitSize is allowed per statement.");
+        }
+        splitForEachParsed = true;
+      }
       MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
       String collection = nodeToHandle.getStringAttribute("collection");
       String item = nodeToHandle.getStringAttribute("item");
@@ -176,7 +233,7 @@ public class XMLScriptBuilder extends BaseBuilder {
       String open = nodeToHandle.getStringAttribute("open");
       String close = nodeToHandle.getStringAttribute("close");
       String separator = nodeToHandle.getStringAttribute("separator");
-      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator);
+      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator, splitSize);
       targetContents.add(forEachSqlNode);
     }
   }
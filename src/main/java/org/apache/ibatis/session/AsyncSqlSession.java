@@ -0,0 +1,142 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Runs statements without blocking the calling thread.
+ * <p>
+ * Every operation borrows its own {@link SqlSession} from the {@link SqlSessionFactory} on an executor thread, commits
+ * it when the operation succeeds and closes it, so an operation is a transaction of its own. The number of operations
+ * running at the same time is bounded by {@link Configuration#getAsyncMaxConcurrency()} (or the size of the connection
+ * pool); further operations are queued instead of waiting for a connection on an executor thread.
+ * Use {@link #execute(Function)} to run several statements in one transaction.
+ *
+ * @since 3.5.7
+ */
+public interface AsyncSqlSession {
+
+  /**
+   * Retrieve a single row mapped from the statement key.
+   * @param <T> the returned object type
+   * @param statement
+   *          the statement
+   * @return a future completed with the mapped object
+   */
+  <T> CompletableFuture<T> selectOne(String statement);
+
+  /**
+   * Retrieve a single row mapped from the statement key and parameter.
+   * @param <T> the returned object type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future completed with the mapped object
+   */
+  <T> CompletableFuture<T> selectOne(String statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @return a future completed with the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future completed with the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter,
+   * within the specified row bounds.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return a future completed with the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  /**
+   * Builds a map from the list of mapped objects, see {@link SqlSession#selectMap(String, Object, String)}.
+   * @param <K> the returned Map keys type
+   * @param <V> the returned Map values type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param mapKey The property to use as key for each value in the list.
+   * @return a future completed with the Map containing key pair data.
+   */
+  <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey);
+
+  /**
+   * Execute an insert statement with the given parameter object and commit it.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future completed with the number of rows affected by the insert.
+   */
+  CompletableFuture<Integer> insert(String statement, Object parameter);
+
+  /**
+   * Execute an update statement with the given parameter object and commit it.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future completed with the number of rows affected by the update.
+   */
+  CompletableFuture<Integer> update(String statement, Object parameter);
+
+  /**
+   * Execute a delete statement with the given parameter object and commit it.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future completed with the number of rows affected by the delete.
+   */
+  CompletableFuture<Integer> delete(String statement, Object parameter);
+
+  /**
+   * Runs a unit of work in a single session and transaction. The session is committed when the work returns and rolled
+   * back when it throws.
+   * @param <T> the result type
+   * @param work the work to run
+   * @return a future completed with the result of the work
+   */
+  <T> CompletableFuture<T> execute(Function<SqlSession, T> work);
+
+  /**
+   * Retrieves a mapper whose methods declaring a {@link CompletableFuture} or
+   * {@link java.util.concurrent.CompletionStage} return type run asynchronously. Other methods run on the calling
+   * thread in a session of their own.
+   * @param <T> the mapper type
+   * @param type Mapper interface class
+   * @return a mapper bound to this session
+   */
+  <T> T getMapper(Class<T> type);
+
+  /**
+   * Retrieves current configuration.
+   * @return Configuration
+   */
+  Configuration getConfiguration();
+
+}
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -39,7 +40,9 @@ import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
@@ -68,6 +71,7 @@ import org.apache.ibatis.logging.slf4j.Slf4jImpl;
 import org.apache.ibatis.logging.stdout.StdOutImpl;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.LazyMappedStatement;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
 import org.apache.ibatis.mapping.ResultMap;
@@ -124,6 +128,14 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected Integer asyncMaxConcurrency;
+  // the simple name Executor is the executor of MyBatis in this class
+  protected java.util.concurrent.Executor asyncExecutor;
+  protected Integer multiRowInsertSize;
+  protected boolean groupBatchedInserts;
+  protected boolean parallelMapperParsing;
+  protected boolean lazyStatementBuilding;
+  protected Integer cursorPrefetchSize;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -155,6 +167,9 @@ public class Configuration {
   protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection")
       .conflictMessageProducer((savedValue, targetValue) ->
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
+  protected final Map<String, LazyMappedStatement> lazyMappedStatements = new StrictMap<LazyMappedStatement>("Mapped Statements collection")
+      .conflictMessageProducer((savedValue, targetValue) ->
+          ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
@@ -186,6 +201,7 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
     typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+    typeAliasRegistry.registerAlias("CONCURRENT_POOLED", ConcurrentPooledDataSourceFactory.class);
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
@@ -193,6 +209,7 @@ public class Configuration {
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -297,6 +314,164 @@ public class Configuration {
     this.shrinkWhitespacesInSql = shrinkWhitespacesInSql;
   }
 
+  /**
+   * Gets the maximum number of statements an {@link AsyncSqlSession} runs at the same time.
+   *
+   * @return the maximum concurrency, or <code>null</code> to derive it from the data source
+   * @since 3.5.7
+   */
+  public Integer getAsyncMaxConcurrency() {
+    return asyncMaxConcurrency;
+  }
+
+  /**
+   * Sets the maximum number of statements an {@link AsyncSqlSession} runs at the same time.
+   *
+   * @param asyncMaxConcurrency
+   *          the maximum concurrency
+   * @since 3.5.7
+   */
+  public void setAsyncMaxConcurrency(Integer asyncMaxConcurrency) {
+    this.asyncMaxConcurrency = asyncMaxConcurrency;
+  }
+
+  /**
+   * Gets the executor that runs the statements of an {@link AsyncSqlSession}.
+   *
+   * @return the executor, or <code>null</code> to use a shared pool of daemon threads
+   * @since 3.5.7
+   */
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the executor that runs the statements of an {@link AsyncSqlSession}.
+   *
+   * @param asyncExecutor
+   *          the executor
+   * @since 3.5.7
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Gets the maximum number of rows the {@link ExecutorType#BATCH} executor combines into a single multi-row
+   * <code>INSERT ... VALUES (...), (...)</code> statement.
+   *
+   * @return the maximum number of rows, or <code>null</code> to add every row to the JDBC batch on its own
+   * @since 3.5.7
+   */
+  public Integer getMultiRowInsertSize() {
+    return multiRowInsertSize;
+  }
+
+  /**
+   * Sets the maximum number of rows the {@link ExecutorType#BATCH} executor combines into a single multi-row
+   * <code>INSERT ... VALUES (...), (...)</code> statement.
+   *
+   * @param multiRowInsertSize
+   *          the maximum number of rows
+   * @since 3.5.7
+   */
+  public void setMultiRowInsertSize(Integer multiRowInsertSize) {
+    this.multiRowInsertSize = multiRowInsertSize;
+  }
+
+  /**
+   * Returns whether the batch executor adds the rows of an insert statement to the batch it opened earlier in the
+   * session, instead of opening a new batch each time insert statements alternate.
+   *
+   * @return true if the rows of insert statements are grouped
+   * @since 3.5.7
+   */
+  public boolean isGroupBatchedInserts() {
+    return groupBatchedInserts;
+  }
+
+  /**
+   * Sets whether the batch executor adds the rows of an insert statement to the batch it opened earlier in the
+   * session. Only inserts of values are grouped, and never across an update, a delete or an insert that reads a
+   * table, so each batch runs in the order of the first row added to it.
+   *
+   * @param groupBatchedInserts
+   *          true to group the rows of insert statements
+   * @since 3.5.7
+   */
+  public void setGroupBatchedInserts(boolean groupBatchedInserts) {
+    this.groupBatchedInserts = groupBatchedInserts;
+  }
+
+  /**
+   * Returns whether the mapper XML files listed in the configuration file are read and validated in parallel.
+   *
+   * @return true if the mapper XML files are read in parallel
+   * @since 3.5.7
+   */
+  public boolean isParallelMapperParsing() {
+    return parallelMapperParsing;
+  }
+
+  /**
+   * Sets whether the mapper XML files listed in the configuration file are read and validated in parallel. They are
+   * still registered one after the other, in the order they are listed.
+   *
+   * @param parallelMapperParsing
+   *          true to read the mapper XML files in parallel
+   * @since 3.5.7
+   */
+  public void setParallelMapperParsing(boolean parallelMapperParsing) {
+    this.parallelMapperParsing = parallelMapperParsing;
+  }
+
+  /**
+   * Returns whether the statements of mapper XML files are compiled when they are first used instead of when the
+   * mapper is parsed.
+   *
+   * @return true if the statements are compiled on first use
+   * @since 3.5.7
+   */
+  public boolean isLazyStatementBuilding() {
+    return lazyStatementBuilding;
+  }
+
+  /**
+   * Sets whether the statements of mapper XML files are compiled when they are first used instead of when the mapper
+   * is parsed. Errors in the SQL of a statement are then reported on its first use.
+   *
+   * @param lazyStatementBuilding
+   *          true to compile the statements on first use
+   * @since 3.5.7
+   */
+  public void setLazyStatementBuilding(boolean lazyStatementBuilding) {
+    this.lazyStatementBuilding = lazyStatementBuilding;
+  }
+
+  /**
+   * Gets the maximum number of rows a {@link org.apache.ibatis.cursor.Cursor} reads ahead on a background thread.
+   *
+   * @return the prefetch size, or <code>null</code> if cursors only fetch rows when they are requested
+   * @since 3.5.7
+   */
+  public Integer getCursorPrefetchSize() {
+    return cursorPrefetchSize;
+  }
+
+  /**
+   * Sets the maximum number of rows a {@link org.apache.ibatis.cursor.Cursor} reads ahead on a background thread,
+   * while the caller processes the previous rows. The session must then not be used for anything else while a cursor
+   * is being read. Cursors whose result map uses nested selects are never read ahead, as nested selects and lazy
+   * loading must run on the thread of the session.
+   *
+   * @param cursorPrefetchSize
+   *          the prefetch size, or <code>null</code> to only fetch rows when they are requested
+   * @since 3.5.7
+   */
+  public void setCursorPrefetchSize(Integer cursorPrefetchSize) {
+    this.cursorPrefetchSize = cursorPrefetchSize;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -765,17 +940,64 @@ public class Configuration {
   }
 
   public void addMappedStatement(MappedStatement ms) {
+    if (lazyMappedStatements.containsKey(ms.getId())) {
+      throw new IllegalArgumentException("Mapped Statements collection already contains value for " + ms.getId()
+          + ". please check " + lazyMappedStatements.get(ms.getId()).getResource() + " and " + ms.getResource());
+    }
     mappedStatements.put(ms.getId(), ms);
   }
 
+  /**
+   * Adds a statement that is compiled when it is first returned by {@link #getMappedStatement(String)}.
+   *
+   * @param lms
+   *          the statement to add
+   * @since 3.5.7
+   */
+  public void addLazyMappedStatement(LazyMappedStatement lms) {
+    if (mappedStatements.containsKey(lms.getId())) {
+      throw new IllegalArgumentException("Mapped Statements collection already contains value for " + lms.getId()
+          + ". please check " + mappedStatements.get(lms.getId()).getResource() + " and " + lms.getResource());
+    }
+    lazyMappedStatements.put(lms.getId(), lms);
+  }
+
+  /**
+   * Gets a statement that is compiled on first use, whether it has already been compiled or not.
+   *
+   * @param id
+   *          the statement id
+   * @return the statement, or <code>null</code> if there is no statement compiled on first use with this id
+   * @since 3.5.7
+   */
+  public LazyMappedStatement getLazyMappedStatement(String id) {
+    return lazyMappedStatements.containsKey(id) ? lazyMappedStatements.get(id) : null;
+  }
+
   public Collection<String> getMappedStatementNames() {
     buildAllStatements();
-    return mappedStatements.keySet();
+    if (lazyMappedStatements.isEmpty()) {
+      return mappedStatements.keySet();
+    }
+    Set<String> names = new HashSet<>(mappedStatements.keySet());
+    names.addAll(lazyMappedStatements.keySet());
+    return names;
   }
 
   public Collection<MappedStatement> getMappedStatements() {
     buildAllStatements();
-    return mappedStatements.values();
+    if (lazyMappedStatements.isEmpty()) {
+      return mappedStatements.values();
+    }
+    List<MappedStatement> statements = new ArrayList<>(mappedStatements.values());
+    for (Map.Entry<String, LazyMappedStatement> entry : lazyMappedStatements.entrySet()) {
+      // skips the entries of the short names
+      Object value = entry.getValue();
+      if (value instanceof LazyMappedStatement && ((LazyMappedStatement) value).getId().equals(entry.getKey())) {
+        statements.add(((LazyMappedStatement) value).getMappedStatement());
+      }
+    }
+    return statements;
   }
 
   public Collection<XMLStatementBuilder> getIncompleteStatements() {
@@ -818,6 +1040,9 @@ public class Configuration {
     if (validateIncompleteStatements) {
       buildAllStatements();
     }
+    if (!mappedStatements.containsKey(id) && lazyMappedStatements.containsKey(id)) {
+      return lazyMappedStatements.get(id).getMappedStatement();
+    }
     return mappedStatements.get(id);
   }
 
@@ -857,7 +1082,7 @@ public class Configuration {
     if (validateIncompleteStatements) {
       buildAllStatements();
     }
-    return mappedStatements.containsKey(statementName);
+    return mappedStatements.containsKey(statementName) || lazyMappedStatements.containsKey(statementName);
   }
 
   public void addCacheRef(String namespace, String referencedNamespace) {
@@ -42,4 +42,17 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Returns a session whose statements run on {@link Configuration#getAsyncExecutor()}, each in its own
+   * {@link SqlSession} opened from this factory, and complete a {@link java.util.concurrent.CompletableFuture}.
+   *
+   * @return the async session
+   * @throws UnsupportedOperationException
+   *           if this factory does not open async sessions
+   * @since 3.5.7
+   */
+  default AsyncSqlSession openAsyncSession() {
+    throw new UnsupportedOperationException(getClass().getName() + " does not open async sessions.");
+  }
+
 }
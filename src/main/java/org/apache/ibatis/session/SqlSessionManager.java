@@ -116,6 +116,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionFactory.openSession();
   }
 
+  @Override
+  public AsyncSqlSession openAsyncSession() {
+    return sqlSessionFactory.openAsyncSession();
+  }
+
   @Override
   public SqlSession openSession(boolean autoCommit) {
     return sqlSessionFactory.openSession(autoCommit);
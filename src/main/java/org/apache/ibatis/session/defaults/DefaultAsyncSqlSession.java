@@ -0,0 +1,284 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * The default implementation for {@link AsyncSqlSession}.
+ * <p>
+ * Operations are queued and handed to the executor while fewer than the maximum concurrency are running, so executor
+ * threads never pile up waiting for a pooled connection.
+ *
+ * @since 3.5.7
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  private static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final Configuration configuration;
+  private final Executor executor;
+  private final int maxConcurrency;
+  private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger running = new AtomicInteger();
+
+  public DefaultAsyncSqlSession(SqlSessionFactory sqlSessionFactory) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.configuration = sqlSessionFactory.getConfiguration();
+    Executor asyncExecutor = configuration.getAsyncExecutor();
+    this.executor = asyncExecutor == null ? DefaultExecutorHolder.EXECUTOR : asyncExecutor;
+    this.maxConcurrency = resolveMaxConcurrency(configuration);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return execute(session -> session.selectOne(statement));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return execute(session -> session.selectOne(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return execute(session -> session.selectList(statement));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return execute(session -> session.selectList(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return execute(session -> session.selectList(statement, parameter, rowBounds));
+  }
+
+  @Override
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey) {
+    return execute(session -> session.selectMap(statement, parameter, mapKey));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return execute(session -> session.insert(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return execute(session -> session.update(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return execute(session -> session.delete(statement, parameter));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> execute(Function<SqlSession, T> work) {
+    Task<T> task = new Task<>(work);
+    queue.offer(task);
+    schedule();
+    return task.future;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getMapper(Class<T> type) {
+    if (!configuration.hasMapper(type)) {
+      throw new BindingException("Type " + type + " is not known to the MapperRegistry.");
+    }
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, new AsyncMapperHandler(type));
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+  int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  private void schedule() {
+    for (;;) {
+      int current = running.get();
+      if (current >= maxConcurrency || queue.isEmpty()) {
+        // a running task schedules the queued ones when it completes
+        return;
+      }
+      if (!running.compareAndSet(current, current + 1)) {
+        continue;
+      }
+      Task<?> task = queue.poll();
+      if (task == null) {
+        // taken by another thread, whoever offers next schedules it
+        running.decrementAndGet();
+        continue;
+      }
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        running.decrementAndGet();
+        task.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static int resolveMaxConcurrency(Configuration configuration) {
+    Integer maxConcurrency = configuration.getAsyncMaxConcurrency();
+    if (maxConcurrency != null) {
+      if (maxConcurrency <= 0) {
+        throw new IllegalArgumentException("asyncMaxConcurrency must be a positive number but was " + maxConcurrency);
+      }
+      return maxConcurrency;
+    }
+    Environment environment = configuration.getEnvironment();
+    DataSource dataSource = environment == null ? null : environment.getDataSource();
+    if (dataSource instanceof PooledDataSource) {
+      return Math.max(1, ((PooledDataSource) dataSource).getPoolMaximumActiveConnections());
+    }
+    return DEFAULT_MAX_CONCURRENCY;
+  }
+
+  private class Task<T> implements Runnable {
+    private final Function<SqlSession, T> work;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    Task(Function<SqlSession, T> work) {
+      this.work = work;
+    }
+
+    @Override
+    public void run() {
+      T result = null;
+      Throwable failure = null;
+      try (SqlSession session = sqlSessionFactory.openSession()) {
+        result = work.apply(session);
+        session.commit();
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        running.decrementAndGet();
+        schedule();
+      }
+      // completed once the connection is back in the pool, dependent stages may run on this thread
+      if (failure == null) {
+        future.complete(result);
+      } else {
+        future.completeExceptionally(failure);
+      }
+    }
+  }
+
+  private class AsyncMapperHandler implements InvocationHandler {
+    private final Class<?> type;
+
+    AsyncMapperHandler(Class<?> type) {
+      this.type = type;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (Object.class.equals(method.getDeclaringClass())) {
+        return method.invoke(this, args);
+      }
+      Class<?> returnType = method.getReturnType();
+      if (CompletableFuture.class.equals(returnType) || CompletionStage.class.equals(returnType)) {
+        return execute(session -> {
+          Object result = invokeMapper(session, method, args);
+          if (result instanceof CompletionStage) {
+            try {
+              // already completed by the mapper method of the session
+              return ((CompletionStage<?>) result).toCompletableFuture().join();
+            } catch (CompletionException e) {
+              throw toRuntimeException(e.getCause());
+            }
+          }
+          return result;
+        });
+      }
+      try (SqlSession session = sqlSessionFactory.openSession()) {
+        Object result = invokeMapper(session, method, args);
+        session.commit();
+        return result;
+      }
+    }
+
+    private Object invokeMapper(SqlSession session, Method method, Object[] args) {
+      try {
+        return method.invoke(session.getMapper(type), args);
+      } catch (InvocationTargetException | IllegalAccessException e) {
+        throw toRuntimeException(ExceptionUtil.unwrapThrowable(e));
+      }
+    }
+
+    private RuntimeException toRuntimeException(Throwable t) {
+      if (t instanceof RuntimeException) {
+        return (RuntimeException) t;
+      }
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+      return new PersistenceException(t);
+    }
+  }
+
+  private static class DefaultExecutorHolder {
+    private static final ExecutorService EXECUTOR;
+
+    static {
+      AtomicInteger threadNumber = new AtomicInteger();
+      EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.AsyncSqlSession;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
@@ -37,6 +38,7 @@ import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
 public class DefaultSqlSessionFactory implements SqlSessionFactory {
 
   private final Configuration configuration;
+  private volatile AsyncSqlSession asyncSqlSession;
 
   public DefaultSqlSessionFactory(Configuration configuration) {
     this.configuration = configuration;
@@ -87,6 +89,22 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
     return configuration;
   }
 
+  @Override
+  public AsyncSqlSession openAsyncSession() {
+    // a single instance so that the concurrency limit applies to the whole factory
+    AsyncSqlSession session = asyncSqlSession;
+    if (session == null) {
+      synchronized (this) {
+        session = asyncSqlSession;
+        if (session == null) {
+          session = new DefaultAsyncSqlSession(this);
+          asyncSqlSession = session;
+        }
+      }
+    }
+    return session;
+  }
+
   private SqlSession openSessionFromDataSource(ExecutorType execType, TransactionIsolationLevel level, boolean autoCommit) {
     Transaction tx = null;
     try {
@@ -57,9 +57,13 @@ public final class TypeHandlerRegistry {
   private final Map<JdbcType, TypeHandler<?>>  jdbcTypeHandlerMap = new EnumMap<>(JdbcType.class);
   private final Map<Type, Map<JdbcType, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<>();
   private final TypeHandler<Object> unknownTypeHandler;
-  private final Map<Class<?>, TypeHandler<?>> allTypeHandlersMap = new HashMap<>();
+  private final Map<Class<?>, TypeHandler<?>> allTypeHandlersMap = new ConcurrentHashMap<>();
+  // the handler resolved for a java type, indexed by jdbc type (null first), replaced when a handler is registered
+  private volatile Map<Type, Object[]> resolvedTypeHandlers = new ConcurrentHashMap<>();
 
   private static final Map<JdbcType, TypeHandler<?>> NULL_TYPE_HANDLER_MAP = Collections.emptyMap();
+  private static final Object NO_TYPE_HANDLER = new Object();
+  private static final int JDBC_TYPE_COUNT = JdbcType.values().length;
 
   private Class<? extends TypeHandler> defaultEnumTypeHandler = EnumTypeHandler.class;
 
@@ -187,6 +191,7 @@ public final class TypeHandlerRegistry {
    */
   public void setDefaultEnumTypeHandler(Class<? extends TypeHandler> typeHandler) {
     this.defaultEnumTypeHandler = typeHandler;
+    resolvedTypeHandlers = new ConcurrentHashMap<>();
   }
 
   public boolean hasTypeHandler(Class<?> javaType) {
@@ -234,6 +239,25 @@ public final class TypeHandlerRegistry {
     if (ParamMap.class.equals(type)) {
       return null;
     }
+    Map<Type, Object[]> resolved = resolvedTypeHandlers;
+    Object[] handlers = resolved.get(type);
+    int index = jdbcType == null ? 0 : jdbcType.ordinal() + 1;
+    Object handler = handlers == null ? null : handlers[index];
+    if (handler == null) {
+      handler = resolveTypeHandler(type, jdbcType);
+      if (handler == null) {
+        handler = NO_TYPE_HANDLER;
+      }
+      // copied so that the handlers are safely published by the map
+      Object[] newHandlers = handlers == null ? new Object[JDBC_TYPE_COUNT + 1] : handlers.clone();
+      newHandlers[index] = handler;
+      resolved.put(type, newHandlers);
+    }
+    // type drives generics here
+    return handler == NO_TYPE_HANDLER ? null : (TypeHandler<T>) handler;
+  }
+
+  private TypeHandler<?> resolveTypeHandler(Type type, JdbcType jdbcType) {
     Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = getJdbcHandlerMap(type);
     TypeHandler<?> handler = null;
     if (jdbcHandlerMap != null) {
@@ -246,8 +270,7 @@ public final class TypeHandlerRegistry {
         handler = pickSoleHandler(jdbcHandlerMap);
       }
     }
-    // type drives generics here
-    return (TypeHandler<T>) handler;
+    return handler;
   }
 
   private Map<JdbcType, TypeHandler<?>> getJdbcHandlerMap(Type type) {
@@ -391,11 +414,11 @@ public final class TypeHandlerRegistry {
   private void register(Type javaType, JdbcType jdbcType, TypeHandler<?> handler) {
     if (javaType != null) {
       Map<JdbcType, TypeHandler<?>> map = typeHandlerMap.get(javaType);
-      if (map == null || map == NULL_TYPE_HANDLER_MAP) {
-        map = new HashMap<>();
-      }
+      // copied so that lookups never see a map being updated
+      map = map == null || map == NULL_TYPE_HANDLER_MAP ? new HashMap<>() : new HashMap<>(map);
       map.put(jdbcType, handler);
       typeHandlerMap.put(javaType, map);
+      resolvedTypeHandlers = new ConcurrentHashMap<>();
     }
     allTypeHandlersMap.put(handler.getClass(), handler);
   }
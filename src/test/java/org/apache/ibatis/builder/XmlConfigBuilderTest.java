@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
 import java.math.RoundingMode;
 import java.sql.CallableStatement;
@@ -33,6 +34,7 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
+import java.util.Scanner;
 
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
@@ -306,6 +308,48 @@ class XmlConfigBuilderTest {
       .hasMessageContaining("The properties element cannot specify both a URL and a resource based property file reference.  Please specify one or the other.");
   }
 
+  @Test
+  void shouldParseMapperDocumentsInParallel() throws Exception {
+    String config;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/builder/MapperConfig.xml");
+        Scanner scanner = new Scanner(reader).useDelimiter("\\A")) {
+      config = scanner.next();
+    }
+    Configuration sequential = new XMLConfigBuilder(new StringReader(config)).parse();
+    Configuration parallel = new XMLConfigBuilder(new StringReader(config.replace("<settings>",
+        "<settings>\n    <setting name=\"parallelMapperParsing\" value=\"true\"/>"))).parse();
+
+    assertThat(sequential.isParallelMapperParsing()).isFalse();
+    assertThat(parallel.isParallelMapperParsing()).isTrue();
+    assertThat(parallel.getMappedStatementNames()).hasSameElementsAs(sequential.getMappedStatementNames());
+    assertThat(parallel.getResultMapNames()).hasSameElementsAs(sequential.getResultMapNames());
+    assertThat(parallel.getCacheNames()).hasSameElementsAs(sequential.getCacheNames());
+    assertThat(parallel.getMappedStatement("org.apache.ibatis.domain.blog.mappers.BlogMapper.selectBlogWithPostsUsingSubSelect")
+        .getResultMaps().get(0).getId())
+        .isEqualTo(sequential.getMappedStatement("org.apache.ibatis.domain.blog.mappers.BlogMapper.selectBlogWithPostsUsingSubSelect")
+            .getResultMaps().get(0).getId());
+  }
+
+  @Test
+  void shouldReportMissingMapperWhenParsingInParallel() {
+    final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+            + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+            + "<configuration>\n"
+            + "  <settings>\n"
+            + "    <setting name=\"parallelMapperParsing\" value=\"true\"/>\n"
+            + "  </settings>\n"
+            + "  <mappers>\n"
+            + "    <mapper resource=\"org/apache/ibatis/builder/xml/Missing.xml\"/>\n"
+            + "    <mapper resource=\"org/apache/ibatis/builder/ProblemMapper.xml\"/>\n"
+            + "  </mappers>\n"
+            + "</configuration>\n";
+
+    XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(MAPPER_CONFIG));
+    when(builder::parse);
+    then(caughtException()).isInstanceOf(BuilderException.class)
+      .hasMessageContaining("Could not find resource org/apache/ibatis/builder/xml/Missing.xml");
+  }
+
   static class MySqlProvider {
     @SuppressWarnings("unused")
     public static String provideSql() {
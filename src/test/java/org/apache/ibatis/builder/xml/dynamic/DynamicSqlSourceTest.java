@@ -16,15 +16,21 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.io.Resources;
@@ -376,6 +382,72 @@ class DynamicSqlSourceTest extends BaseDataTest {
     assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
   }
 
+  @Test
+  void shouldReuseParameterMappingsOfTheSameSql() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ","));
+    BoundSql first = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    BoundSql second = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(3, 4)));
+    BoundSql third = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(5, 6, 7)));
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(Arrays.asList(3, 4), Arrays.asList(second.getAdditionalParameter("__frch_item_0"), second.getAdditionalParameter("__frch_item_1")));
+    assertNotSame(first.getParameterMappings(), third.getParameterMappings());
+    assertEquals(3, third.getParameterMappings().size());
+  }
+
+  @Test
+  void shouldResolveParameterMappingsAgainWhenBoundValuesChangeType() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ","));
+    BoundSql integers = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Arrays.asList("1", "2")));
+    assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedSqlWhenManyTextsAreRenderedOnce() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ","));
+    BoundSql frequent = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(0)));
+    BoundSql once = null;
+    for (int size = 2; size <= 80; size++) {
+      once = source.getBoundSql(Collections.singletonMap("list", Collections.nCopies(size, 0)));
+      source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(size)));
+    }
+    assertSame(frequent.getParameterMappings(),
+        source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(1))).getParameterMappings());
+    // the texts rendered once beyond the size of the cache are not kept
+    BoundSql again = source.getBoundSql(Collections.singletonMap("list", Collections.nCopies(79, 0)));
+    assertNotSame(once.getParameterMappings(), again.getParameterMappings());
+  }
+
+  @Test
+  void shouldShareParsedSqlBetweenThreads() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ","));
+    BoundSql first = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<BoundSql>> results = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        final int id = i;
+        results.add(executor.submit(() -> source.getBoundSql(Collections.singletonMap("list", Arrays.asList(id, id + 1)))));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        BoundSql boundSql = results.get(i).get();
+        assertSame(first.getParameterMappings(), boundSql.getParameterMappings());
+        assertEquals(Arrays.asList(i, i + 1), Arrays.asList(boundSql.getAdditionalParameter("__frch_item_0"), boundSql.getAdditionalParameter("__frch_item_1")));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
     createBlogDataSource();
     final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
@@ -122,6 +122,58 @@ class CacheKeyTest {
     assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldTreatIntUpdatesAsBoxedValues() {
+    CacheKey key1 = new CacheKey();
+    key1.update(0);
+    key1.update(Integer.MAX_VALUE);
+    key1.update(1000);
+    CacheKey key2 = new CacheKey(3);
+    key2.update(Integer.valueOf(0));
+    key2.update(Integer.valueOf(Integer.MAX_VALUE));
+    key2.update(Integer.valueOf(1000));
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldGrowBeyondInitialCapacity() {
+    CacheKey key1 = new CacheKey(1);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 100; i++) {
+      key1.update("value" + i);
+      key2.update("value" + i);
+    }
+    assertEquals(100, key1.getUpdateCount());
+    assertEquals(key1, key2);
+  }
+
+  @Test
+  void shouldNotShareComponentsWithClone() throws Exception {
+    CacheKey cacheKey = new CacheKey(new Object[] { "a", "b" });
+    CacheKey clonedCacheKey = cacheKey.clone();
+    clonedCacheKey.update("c");
+    cacheKey.update("d");
+    assertEquals(3, clonedCacheKey.getUpdateCount());
+    assertNotEquals(cacheKey, clonedCacheKey);
+    assertEquals(new CacheKey(new Object[] { "a", "b", "c" }), clonedCacheKey);
+    assertEquals(new CacheKey(new Object[] { "a", "b", "d" }), cacheKey);
+  }
+
+  @Test
+  void shouldKeepComponentsWhenSerialized() throws Exception {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("serializable");
+    cacheKey.update(10);
+    cacheKey.update(null);
+    CacheKey deserialized = serialize(cacheKey);
+    assertEquals(cacheKey, deserialized);
+    assertEquals(cacheKey.toString(), deserialized.toString());
+    deserialized.update("more");
+    assertEquals(4, deserialized.getUpdateCount());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
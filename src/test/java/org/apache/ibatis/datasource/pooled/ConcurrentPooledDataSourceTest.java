@@ -0,0 +1,188 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPooledDataSourceTest extends BaseDataTest {
+
+  private ConcurrentPooledDataSource ds;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Properties props = Resources.getResourceAsProperties(JPETSTORE_PROPERTIES);
+    ds = new ConcurrentPooledDataSource(props.getProperty("driver"), props.getProperty("url"),
+        props.getProperty("username"), props.getProperty("password"));
+    runScript(ds, JPETSTORE_DDL);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+    ds.setDefaultAutoCommit(false);
+    ds.setPoolMaximumActiveConnections(3);
+    ds.setPoolMaximumIdleConnections(2);
+    ds.setPoolMaximumCheckoutTime(10000);
+    ds.setPoolPingConnectionsNotUsedFor(1);
+    ds.setPoolPingEnabled(true);
+    ds.setPoolPingQuery("SELECT * FROM PRODUCT");
+    ds.setPoolTimeToWait(10000);
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      connections.add(ds.getConnection());
+    }
+    assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    for (Connection c : connections) {
+      c.close();
+    }
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    // includes the connection used to run the DDL script
+    assertEquals(4, ds.getPoolState().getRequestCount());
+    assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    assertEquals(0, ds.getPoolState().getHadToWaitCount());
+    assertEquals(0, ds.getPoolState().getClaimedOverdueConnectionCount());
+    assertNotNull(ds.getPoolState().toString());
+  }
+
+  @Test
+  void shouldReturnTheConnectionPreviouslyReleasedByTheSameThread() throws Exception {
+    Connection c1 = ds.getConnection();
+    Connection c2 = ds.getConnection();
+    Connection real2 = PooledDataSource.unwrapConnection(c2);
+    c2.close();
+    c1.close();
+    // the most recently returned connection comes back first
+    Connection c3 = ds.getConnection();
+    assertSame(PooledDataSource.unwrapConnection(c1), PooledDataSource.unwrapConnection(c3));
+    Connection c4 = ds.getConnection();
+    assertSame(real2, PooledDataSource.unwrapConnection(c4));
+    c3.close();
+    c4.close();
+  }
+
+  @Test
+  void shouldInvalidateTheProxyOnClose() throws Exception {
+    Connection c = ds.getConnection();
+    c.close();
+    SQLException e = assertThrows(SQLException.class, c::getAutoCommit);
+    assertEquals("Error accessing PooledConnection. Connection is invalid.", e.getMessage());
+    c.close();
+    assertEquals(1, ds.getPoolState().getBadConnectionCount());
+    assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldClaimOverdueConnection() throws Exception {
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolMaximumCheckoutTime(50);
+    ds.setPoolTimeToWait(10);
+    Connection leaked = ds.getConnection();
+    Thread.sleep(100);
+    Connection c = ds.getConnection();
+    assertSame(PooledDataSource.unwrapConnection(leaked), PooledDataSource.unwrapConnection(c));
+    assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+    assertThrows(SQLException.class, leaked::getAutoCommit);
+    leaked.close();
+    c.close();
+    assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+  }
+
+  @Test
+  void shouldCloseEveryConnectionOnForceCloseAll() throws Exception {
+    Connection active = ds.getConnection();
+    ds.getConnection().close();
+    ds.forceCloseAll();
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    assertThrows(SQLException.class, active::getAutoCommit);
+    active.close();
+    Connection c = ds.getConnection();
+    executeQuery(c);
+    c.close();
+  }
+
+  @Test
+  void shouldNotExceedMaximumActiveConnectionsUnderContention() throws Exception {
+    ds.setPoolMaximumActiveConnections(4);
+    ds.setPoolMaximumIdleConnections(4);
+    ds.setPoolTimeToWait(100);
+    int threads = 16;
+    int iterations = 200;
+    long requestCount = ds.getPoolState().getRequestCount();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          int maxActive = 0;
+          for (int j = 0; j < iterations; j++) {
+            try (Connection c = ds.getConnection()) {
+              maxActive = Math.max(maxActive, ds.getPoolState().getActiveConnectionCount());
+              executeQuery(c);
+            }
+          }
+          return maxActive;
+        }));
+      }
+      start.countDown();
+      for (Future<Integer> future : futures) {
+        assertTrue(future.get(30, TimeUnit.SECONDS) <= 4);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(requestCount + threads * iterations, ds.getPoolState().getRequestCount());
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(4, ds.getPoolState().getIdleConnectionCount());
+    assertEquals(0, ds.getPoolState().getBadConnectionCount());
+  }
+
+  private void executeQuery(Connection con) throws SQLException {
+    try (PreparedStatement st = con.prepareStatement("SELECT COUNT(*) FROM PRODUCT");
+         ResultSet rs = st.executeQuery()) {
+      assertTrue(rs.next());
+    }
+  }
+
+}
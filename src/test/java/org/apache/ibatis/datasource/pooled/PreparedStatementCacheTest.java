@@ -0,0 +1,158 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PreparedStatementCacheTest extends BaseDataTest {
+
+  private static final String SELECT_PRODUCT = "SELECT NAME FROM PRODUCT WHERE PRODUCTID = ?";
+  private static final String SELECT_CATEGORY = "SELECT NAME FROM CATEGORY WHERE CATID = ?";
+  private static final String SELECT_ITEM = "SELECT PRODUCTID FROM ITEM WHERE ITEMID = ?";
+
+  private PooledDataSource ds;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Properties props = Resources.getResourceAsProperties(JPETSTORE_PROPERTIES);
+    ds = new PooledDataSource(props.getProperty("driver"), props.getProperty("url"),
+        props.getProperty("username"), props.getProperty("password"));
+    runScript(ds, JPETSTORE_DDL);
+    runScript(ds, JPETSTORE_DATA);
+    ds.setPoolMaximumIdleConnections(1);
+    ds.setPoolPreparedStatementCacheSize(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldReuseStatementsAcrossCheckouts() throws Exception {
+    PreparedStatement first;
+    try (Connection conn = ds.getConnection(); PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT)) {
+      first = ps.unwrap(PreparedStatement.class);
+      ps.setQueryTimeout(10);
+      ps.setString(1, "FI-SW-01");
+      assertThat(queryName(ps)).isEqualTo("Angelfish");
+      assertThat(ps.getConnection()).isSameAs(conn);
+    }
+    try (Connection conn = ds.getConnection(); PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT)) {
+      assertThat(ps.unwrap(PreparedStatement.class)).isSameAs(first);
+      assertThat(ps.getQueryTimeout()).isZero();
+      ps.setString(1, "K9-BD-01");
+      assertThat(queryName(ps)).isEqualTo("Bulldog");
+    }
+    assertThat(first.isClosed()).isFalse();
+    assertThat(ds.getPoolState().getPreparedStatementCacheHitCount()).isEqualTo(1);
+    assertThat(ds.getPoolState().getPreparedStatementCacheMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotShareStatementsInUse() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps1 = conn.prepareStatement(SELECT_PRODUCT);
+      PreparedStatement ps2 = conn.prepareStatement(SELECT_PRODUCT);
+      PreparedStatement real1 = ps1.unwrap(PreparedStatement.class);
+      PreparedStatement real2 = ps2.unwrap(PreparedStatement.class);
+      assertThat(real2).isNotSameAs(real1);
+      ps1.close();
+      ps2.close();
+      // the cache keeps the statement closed last
+      assertThat(real1.isClosed()).isTrue();
+      assertThat(real2.isClosed()).isFalse();
+      assertThat(ps1.isClosed()).isTrue();
+      assertThat(ps2.isClosed()).isTrue();
+    }
+  }
+
+  @Test
+  void shouldCloseLeastRecentlyUsedStatements() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement product = prepareAndClose(conn, SELECT_PRODUCT);
+      PreparedStatement category = prepareAndClose(conn, SELECT_CATEGORY);
+      assertThat(prepareAndClose(conn, SELECT_PRODUCT)).isSameAs(product);
+      PreparedStatement item = prepareAndClose(conn, SELECT_ITEM);
+      assertThat(category.isClosed()).isTrue();
+      assertThat(product.isClosed()).isFalse();
+      assertThat(item.isClosed()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldNotCacheStatementsClosedOnCompletion() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT);
+      PreparedStatement real = ps.unwrap(PreparedStatement.class);
+      ps.closeOnCompletion();
+      ps.close();
+      assertThat(real.isClosed()).isTrue();
+      assertThat(prepareAndClose(conn, SELECT_PRODUCT)).isNotSameAs(real);
+    }
+    assertThat(ds.getPoolState().getPreparedStatementCacheHitCount()).isZero();
+  }
+
+  @Test
+  void shouldDropStatementsOfClosedConnections() throws Exception {
+    PreparedStatement first;
+    try (Connection conn = ds.getConnection()) {
+      first = prepareAndClose(conn, SELECT_PRODUCT);
+    }
+    ds.forceCloseAll();
+    assertThat(first.isClosed()).isTrue();
+    try (Connection conn = ds.getConnection()) {
+      assertThat(prepareAndClose(conn, SELECT_PRODUCT)).isNotSameAs(first);
+    }
+    assertThat(ds.getPoolState().getPreparedStatementCacheHitCount()).isZero();
+  }
+
+  @Test
+  void shouldCloseStatementsReturnedAfterTheirConnection() throws Exception {
+    Connection conn = ds.getConnection();
+    PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT);
+    PreparedStatement real = ps.unwrap(PreparedStatement.class);
+    conn.close();
+    ps.close();
+    assertThat(real.isClosed()).isTrue();
+  }
+
+  private static PreparedStatement prepareAndClose(Connection conn, String sql) throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      return ps.unwrap(PreparedStatement.class);
+    }
+  }
+
+  private static String queryName(PreparedStatement ps) throws SQLException {
+    try (ResultSet rs = ps.executeQuery()) {
+      rs.next();
+      return rs.getString(1);
+    }
+  }
+
+}
@@ -19,6 +19,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import java.util.HashMap;
 import java.util.List;
@@ -35,6 +39,7 @@ import org.apache.ibatis.domain.blog.Post;
 import org.apache.ibatis.domain.blog.Section;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
@@ -416,6 +421,28 @@ class BaseExecutorTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldFetchComplexBlogsWithStatementLocalCacheScope() throws Exception {
+    config.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    shouldFetchComplexBlogs();
+  }
+
+  @Test
+  void shouldNotCreateCacheKeyWhenLocalCacheCannotBeUsed() throws Exception {
+    config.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    Executor executor = spy(createExecutor(new JdbcTransaction(ds, null, false)));
+    try {
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+      assertEquals(101, authors.get(0).getId());
+      verify(executor, never()).createCacheKey(any(), any(), any(), any());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Test
   void shouldMapConstructorResults() throws Exception {
 
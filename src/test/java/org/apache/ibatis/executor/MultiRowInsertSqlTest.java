@@ -0,0 +1,61 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertSqlTest {
+
+  @Test
+  void shouldRepeatTheRowOfValues() {
+    MultiRowInsertSql sql = MultiRowInsertSql.parse("INSERT INTO t (a, b) VALUES (?, lower(?)) RETURNING id", 2);
+    assertThat(sql.build(1)).isEqualTo("INSERT INTO t (a, b) VALUES (?, lower(?)) RETURNING id");
+    assertThat(sql.build(3)).isEqualTo("INSERT INTO t (a, b) VALUES (?, lower(?)),(?, lower(?)),(?, lower(?)) RETURNING id");
+  }
+
+  @Test
+  void shouldIgnoreQuotedText() {
+    MultiRowInsertSql sql = MultiRowInsertSql.parse("insert into t (\"values\", b) values ('?)', ?)", 1);
+    assertThat(sql.build(2)).isEqualTo("insert into t (\"values\", b) values ('?)', ?),('?)', ?)");
+  }
+
+  @Test
+  void shouldTellWhetherTheStatementHoldsAQuery() {
+    assertThat(MultiRowInsertSql.parse("insert into t (a, b) values (?, (select max(b) from u))", 1).hasQuery()).isTrue();
+    assertThat(MultiRowInsertSql.parse("insert into t (a, b) values (?, 1) RETURNING (SELECT 1)", 1).hasQuery()).isTrue();
+    assertThat(MultiRowInsertSql.parse("insert into selection_values (a, \"select\") values (?, 'select')", 1).hasQuery())
+        .isFalse();
+  }
+
+  @Test
+  void shouldRejectParametersOutsideOfTheRow() {
+    assertThat(MultiRowInsertSql.parse("insert into t (a) select ? from dual", 1)).isNull();
+    assertThat(MultiRowInsertSql.parse("insert into t (a) values (?) on conflict do update set a = ?", 2)).isNull();
+  }
+
+  @Test
+  void shouldRejectMultiRowInserts() {
+    assertThat(MultiRowInsertSql.parse("insert into t (a) values (?), (?)", 2)).isNull();
+  }
+
+  @Test
+  void shouldRejectUnexpectedParameterCount() {
+    assertThat(MultiRowInsertSql.parse("insert into t (a) values (?)", 2)).isNull();
+  }
+
+}
@@ -16,6 +16,9 @@
 package org.apache.ibatis.executor.resultset;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -129,6 +132,108 @@ class DefaultResultSetHandlerTest {
     }
   }
 
+  @Test
+  void shouldMapRowsOfSimpleResultMapWithCompiledMapper() throws Exception {
+    final Configuration config = new Configuration();
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+    final ResultMap resultMap = new ResultMap.Builder(config, "userMap", User.class, Collections.singletonList(
+        new ResultMapping.Builder(config, "id", "ID", registry.getTypeHandler(Integer.class)).build())).build();
+    final MappedStatement ms = new MappedStatement.Builder(config, "selectUsers",
+        new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(resultMap)).build();
+    final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds());
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true, true, true, false);
+    when(rs.getInt("ID")).thenReturn(1, 2, 0);
+    when(rs.wasNull()).thenReturn(true);
+    when(rs.getString("NAME")).thenReturn("User1", "User2", null);
+    when(rsmd.getColumnCount()).thenReturn(2);
+    when(rsmd.getColumnLabel(1)).thenReturn("ID");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(rsmd.getColumnLabel(2)).thenReturn("NAME");
+    when(rsmd.getColumnType(2)).thenReturn(Types.VARCHAR);
+    when(rsmd.getColumnClassName(2)).thenReturn(String.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false);
+
+    final List<Object> results = resultSetHandler.handleResultSets(stmt);
+    assertEquals(3, results.size());
+    assertEquals(1, ((User) results.get(0)).getId());
+    assertEquals("User1", ((User) results.get(0)).getName());
+    assertEquals(2, ((User) results.get(1)).getId());
+    assertEquals("User2", ((User) results.get(1)).getName());
+    assertNull(results.get(2));
+  }
+
+  @Test
+  void shouldReuseCompiledMapperAcrossExecutions() throws Exception {
+    final Configuration config = new Configuration();
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+    final ResultMap resultMap = new ResultMap.Builder(config, "userMap", User.class, Collections.singletonList(
+        new ResultMapping.Builder(config, "id", "ID", registry.getTypeHandler(Integer.class)).build())).build();
+    final MappedStatement ms = new MappedStatement.Builder(config, "selectUsers",
+        new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(resultMap)).build();
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true, true, false, true, true, false);
+    when(rs.getInt("ID")).thenReturn(1, 2, 3, 4);
+    when(rs.getString("NAME")).thenReturn("User1", "User2", "User3", "User4");
+    when(rsmd.getColumnCount()).thenReturn(2);
+    when(rsmd.getColumnLabel(1)).thenReturn("ID");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(rsmd.getColumnLabel(2)).thenReturn("NAME");
+    when(rsmd.getColumnType(2)).thenReturn(Types.VARCHAR);
+    when(rsmd.getColumnClassName(2)).thenReturn(String.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false);
+
+    new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds()).handleResultSets(stmt);
+    final SimpleRowMapper rowMapper = new ResultSetWrapper(rs, config, ms.getResultSetMetadataCache(), 0)
+        .getSimpleRowMapper(resultMap);
+    assertNotNull(rowMapper);
+
+    // the next execution maps all the rows with the mapper compiled by the first one
+    final List<Object> results = new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds())
+        .handleResultSets(stmt);
+    assertEquals(2, results.size());
+    assertEquals(3, ((User) results.get(0)).getId());
+    assertEquals("User3", ((User) results.get(0)).getName());
+    assertEquals(4, ((User) results.get(1)).getId());
+    assertEquals("User4", ((User) results.get(1)).getName());
+    assertSame(rowMapper, new ResultSetWrapper(rs, config, ms.getResultSetMetadataCache(), 0).getSimpleRowMapper(resultMap));
+  }
+
+  public static class User {
+    private Integer id;
+    private String name;
+
+    public Integer getId() {
+      return id;
+    }
+
+    public void setId(Integer id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
   MappedStatement getMappedStatement() {
     final Configuration config = new Configuration();
     final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.junit.jupiter.api.Test;
+
+class ResultSetMetadataCacheTest {
+
+  private final Configuration configuration = new Configuration();
+  private final ResultSetMetadataCache cache = new ResultSetMetadataCache();
+
+  @Test
+  void shouldShareColumnMetadataOfResultSetsWithTheSameLayout() throws Exception {
+    final ResultMap resultMap = new ResultMap.Builder(configuration, "rm", Object.class, Collections.singletonList(
+        new ResultMapping.Builder(configuration, "id", "ID", new IntegerTypeHandler()).build())).build();
+    final ResultSetWrapper first = new ResultSetWrapper(resultSet("id", "name"), configuration, cache, 0);
+    final List<String> mappedColumnNames = first.getMappedColumnNames(resultMap, null);
+    final List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMappings = new ArrayList<>();
+    first.putAutoMappings(resultMap, null, autoMappings);
+
+    final ResultSetWrapper second = new ResultSetWrapper(resultSet("id", "name"), configuration, cache, 0);
+    assertThat(second.getColumnNames()).isSameAs(first.getColumnNames());
+    assertThat(second.getMappedColumnNames(resultMap, null)).isSameAs(mappedColumnNames).containsExactly("ID");
+    assertThat(second.getUnmappedColumnNames(resultMap, null)).containsExactly("name");
+    assertThat(second.getTypeHandler(Integer.class, "id")).isSameAs(first.getTypeHandler(Integer.class, "id"));
+    assertThat(second.getAutoMappings(resultMap, null)).isSameAs(autoMappings);
+  }
+
+  @Test
+  void shouldReadMetadataAgainWhenTheLayoutChanges() throws Exception {
+    final ResultSetWrapper first = new ResultSetWrapper(resultSet("id", "name"), configuration, cache, 0);
+    final ResultSetWrapper renamed = new ResultSetWrapper(resultSet("id", "title"), configuration, cache, 0);
+    final ResultSetWrapper wider = new ResultSetWrapper(resultSet("id", "name", "title"), configuration, cache, 0);
+    assertThat(renamed.getColumnNames()).containsExactly("id", "title");
+    assertThat(wider.getColumnNames()).containsExactly("id", "name", "title");
+
+    // the previous layouts are still known
+    assertThat(new ResultSetWrapper(resultSet("id", "name"), configuration, cache, 0).getColumnNames())
+        .isSameAs(first.getColumnNames());
+    assertThat(new ResultSetWrapper(resultSet("id", "title"), configuration, cache, 0).getColumnNames())
+        .isSameAs(renamed.getColumnNames());
+  }
+
+  @Test
+  void shouldKeepLayoutsPerResultSet() throws Exception {
+    final ResultSetWrapper first = new ResultSetWrapper(resultSet("id"), configuration, cache, 0);
+    final ResultSetWrapper third = new ResultSetWrapper(resultSet("id"), configuration, cache, 2);
+    assertThat(third.getColumnNames()).isNotSameAs(first.getColumnNames());
+    assertThat(new ResultSetWrapper(resultSet("id"), configuration, cache, 2).getColumnNames())
+        .isSameAs(third.getColumnNames());
+
+    cache.clear();
+    assertThat(new ResultSetWrapper(resultSet("id"), configuration, cache, 0).getColumnNames())
+        .isNotSameAs(first.getColumnNames());
+  }
+
+  @Test
+  void shouldHandleColumnsWithoutLabel() throws Exception {
+    final ResultSetWrapper first = new ResultSetWrapper(resultSet("id", null), configuration, cache, 0);
+    assertThat(first.getColumnNames()).containsExactly("id", null);
+    assertThat(first.getTypeHandler(Integer.class, null)).isInstanceOf(IntegerTypeHandler.class);
+
+    final ResultSetWrapper second = new ResultSetWrapper(resultSet("id", null), configuration, cache, 0);
+    assertThat(second.getColumnNames()).isSameAs(first.getColumnNames());
+  }
+
+  @Test
+  void shouldNotReadColumnClassNamesToValidateALayout() throws Exception {
+    final ResultSet rs = resultSet("id", "name");
+    new ResultSetWrapper(rs, configuration, cache, 0);
+    final ResultSet sameLayout = resultSet("id", "name");
+    final ResultSetMetaData metaData = sameLayout.getMetaData();
+    new ResultSetWrapper(sameLayout, configuration, cache, 0);
+    verify(metaData, never()).getColumnClassName(anyInt());
+  }
+
+  private ResultSet resultSet(String... columns) throws SQLException {
+    final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(columns.length);
+    for (int i = 0; i < columns.length; i++) {
+      when(metaData.getColumnLabel(i + 1)).thenReturn(columns[i]);
+      when(metaData.getColumnType(i + 1)).thenReturn(Types.INTEGER);
+      when(metaData.getColumnClassName(i + 1)).thenReturn(Integer.class.getName());
+    }
+    final ResultSet rs = mock(ResultSet.class);
+    when(rs.getMetaData()).thenReturn(metaData);
+    return rs;
+  }
+
+}
@@ -23,7 +23,11 @@ import java.lang.reflect.Field;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,6 +47,27 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void shouldSelectTinyLfuCacheAsEvictionPolicyWithoutSynchronization() {
+    Cache cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(TinyLfuCache.class)
+        .size(10).readWrite(true).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    SerializedCache serializedCache = unwrap(cache);
+    TinyLfuCache tinyLfuCache = unwrap(serializedCache);
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    Assertions.assertThat(tinyLfuCache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldSelectTinyLfuCacheAsImplementation() {
+    Cache cache = new CacheBuilder("test").implementation(TinyLfuCache.class).addDecorator(LruCache.class).build();
+
+    Assertions.assertThat((Cache) unwrap(cache)).isInstanceOf(TinyLfuCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -46,4 +46,13 @@ class ResultMappingTest {
         .build());
   }
 
+  @Test
+  void shouldFailWithAMissingForeignColumnInBatchedNestedSelect() {
+    Assertions.assertThrows(IllegalStateException.class, () -> new ResultMapping.Builder(configuration, "prop")
+        .column("id")
+        .nestedQueryId("nested query ID")
+        .batchSize(10)
+        .build());
+  }
+
 }
@@ -16,19 +16,31 @@
 package org.apache.ibatis.parsing;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
 import org.apache.ibatis.io.Resources;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
 class XPathParserTest {
@@ -179,6 +191,67 @@ class XPathParserTest {
     }
   }
 
+  @Test
+  void shouldValidateEveryDocumentAgainstTheSharedDtd() {
+    String mapper = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n";
+    for (int i = 0; i < 3; i++) {
+      XPathParser parser = new XPathParser(mapper + "<mapper namespace=\"a\"><select id=\"s\">select 1</select></mapper>",
+          true, null, new XMLMapperEntityResolver());
+      assertEquals("s", parser.evalNode("/mapper/select").getStringAttribute("id"));
+      assertThrows(BuilderException.class, () -> new XPathParser(mapper + "<mapper namespace=\"a\"><unknown/></mapper>",
+          true, null, new XMLMapperEntityResolver()));
+    }
+    // a document parsed without validation is not checked against the DTD
+    XPathParser parser = new XPathParser(mapper + "<mapper namespace=\"a\"><unknown/></mapper>", false, null,
+        new XMLMapperEntityResolver());
+    assertEquals(1, parser.evalNodes("/mapper/unknown").size());
+  }
+
+  @Test
+  void shouldNotLookUpTheFactoriesFromTheContextClassLoader() {
+    Thread thread = Thread.currentThread();
+    ClassLoader previousClassLoader = thread.getContextClassLoader();
+    // e.g. the class loader of another application of a container
+    thread.setContextClassLoader(new ClassLoader(previousClassLoader) {
+      @Override
+      public Enumeration<URL> getResources(String name) throws IOException {
+        throw new IOException("Cannot read " + name);
+      }
+    });
+    try {
+      XPathParser parser = new XPathParser("<mapper namespace=\"a\"><select id=\"s\">select 1</select></mapper>");
+      assertEquals("s", parser.evalNode("/mapper/select").getStringAttribute("id"));
+    } finally {
+      thread.setContextClassLoader(previousClassLoader);
+    }
+  }
+
+  @Test
+  void shouldSelectElementsLikeXPath() throws Exception {
+    Document document = getDocument(resource);
+    XPathParser parser = new XPathParser(document);
+    Node employee = document.getDocumentElement();
+    String[] expressions = { "/employee", "/employee/birth_date/month", "/employee/*", "birth_date/*", "height|weight|blah",
+        "weight | first_name", "employee", "missing", "/employee/missing/year", "*/year" };
+    for (String expression : expressions) {
+      assertNotSame(XPathParser.ElementPath.UNSUPPORTED, XPathParser.ElementPath.parse(expression), expression);
+      for (Node root : new Node[] { document, employee }) {
+        NodeList expected = (NodeList) XPathFactory.newInstance().newXPath().evaluate(expression, root, XPathConstants.NODESET);
+        List<Node> actual = parser.evalNodes(root, expression).stream().map(XNode::getNode).collect(Collectors.toList());
+        assertEquals(expected.getLength(), actual.size(), expression);
+        for (int i = 0; i < actual.size(); i++) {
+          assertEquals(expected.item(i), actual.get(i), expression);
+        }
+        XNode first = parser.evalNode(root, expression);
+        assertEquals(expected.getLength() == 0 ? null : expected.item(0), first == null ? null : first.getNode(), expression);
+      }
+    }
+    for (String expression : new String[] { "//year", "@id", "/employee/@id", "height[1]", "text()", ".", "/" }) {
+      assertEquals(XPathParser.ElementPath.UNSUPPORTED, XPathParser.ElementPath.parse(expression), expression);
+    }
+  }
+
   enum EnumTest {
     YES, NO
   }
@@ -17,9 +17,13 @@ package org.apache.ibatis.plugin;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.junit.jupiter.api.Test;
 
 class PluginTest {
@@ -38,6 +42,102 @@ class PluginTest {
     assertNotEquals("Always", map.toString());
   }
 
+  @Test
+  void shouldApplyInterceptorsInTheOrderTheyWereAdded() {
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new SuffixMapPlugin("A"));
+    chain.addInterceptor(new SuffixMapPlugin("B"));
+    chain.addInterceptor(new SuffixMapPlugin("C"));
+    Map map = new HashMap();
+    map.put("key", "value");
+    map = (Map) chain.pluginAll(map);
+    assertEquals("valueABC", map.get("key"));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  void shouldWrapTheTargetWithASingleProxy() {
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new SuffixMapPlugin("A"));
+    chain.addInterceptor(new SuffixMapPlugin("B"));
+    Map map = new HashMap();
+    Object proxy = chain.pluginAll(map);
+    assertSame(map, SystemMetaObject.forObject(Proxy.getInvocationHandler(proxy)).getValue("target"));
+  }
+
+  @Test
+  void shouldPassTheInnerInterceptorsAsTarget() {
+    List<Object> targets = new ArrayList<>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new SuffixMapPlugin("A"));
+    chain.addInterceptor(new SuffixMapPlugin("B"));
+    chain.addInterceptor(new TargetMapPlugin(targets));
+    Map map = new HashMap();
+    map.put("key", "value");
+    map = (Map) chain.pluginAll(map);
+    assertEquals("valueAB", map.get("key"));
+    assertEquals("valueAB", map.get("key"));
+    assertSame(targets.get(0), targets.get(1));
+  }
+
+  @Test
+  void shouldKeepInterceptorsWithTheirOwnPluginMethodInPlace() {
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new SuffixMapPlugin("A"));
+    chain.addInterceptor(new CopyingMapPlugin("B"));
+    chain.addInterceptor(new SuffixMapPlugin("C"));
+    Map map = new HashMap();
+    map.put("key", "value");
+    map = (Map) chain.pluginAll(map);
+    assertEquals("valueA!BC", map.get("key"));
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class SuffixMapPlugin implements Interceptor {
+    private final String suffix;
+
+    SuffixMapPlugin(String suffix) {
+      this.suffix = suffix;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      return invocation.proceed() + suffix;
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class CopyingMapPlugin extends SuffixMapPlugin {
+    CopyingMapPlugin(String suffix) {
+      super(suffix);
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      Map map = new HashMap();
+      map.put("key", ((Map) target).get("key") + "!");
+      return Plugin.wrap(map, this);
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class TargetMapPlugin implements Interceptor {
+    private final List<Object> targets;
+
+    TargetMapPlugin(List<Object> targets) {
+      this.targets = targets;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) {
+      targets.add(invocation.getTarget());
+      return ((Map) invocation.getTarget()).get(invocation.getArgs()[0]);
+    }
+  }
+
   @Intercepts({
       @Signature(type = Map.class, method = "get", args = {Object.class})})
   public static class AlwaysMapPlugin implements Interceptor {
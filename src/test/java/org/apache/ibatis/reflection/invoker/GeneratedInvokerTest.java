@@ -0,0 +1,152 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.jupiter.api.Test;
+
+class GeneratedInvokerTest {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  @Test
+  void shouldCallGetterAndSetterThroughGeneratedClass() throws Exception {
+    LambdaMethodInvoker getter = new LambdaMethodInvoker(Bean.class.getMethod("getName"));
+    LambdaMethodInvoker setter = new LambdaMethodInvoker(Bean.class.getMethod("setName", String.class));
+    Bean bean = new Bean();
+    for (int i = 0; i < LambdaMethodInvoker.GENERATION_THRESHOLD; i++) {
+      setter.invoke(bean, new Object[] { "name" + i });
+      assertEquals("name" + i, getter.invoke(bean, NO_ARGUMENTS));
+    }
+    assertTrue(getter.isGenerated());
+    assertTrue(setter.isGenerated());
+
+    setter.invoke(bean, new Object[] { "generated" });
+    assertEquals("generated", bean.getName());
+    assertEquals("generated", getter.invoke(bean, NO_ARGUMENTS));
+    setter.invoke(bean, new Object[] { null });
+    assertNull(getter.invoke(bean, NO_ARGUMENTS));
+  }
+
+  @Test
+  void shouldKeepReflectionSemanticsForPrimitives() throws Exception {
+    LambdaMethodInvoker getter = new LambdaMethodInvoker(Bean.class.getMethod("getAge"));
+    LambdaMethodInvoker setter = new LambdaMethodInvoker(Bean.class.getMethod("setAge", long.class));
+    Bean bean = new Bean();
+    for (int i = 0; i < LambdaMethodInvoker.GENERATION_THRESHOLD; i++) {
+      setter.invoke(bean, new Object[] { (long) i });
+      getter.invoke(bean, NO_ARGUMENTS);
+    }
+    assertTrue(setter.isGenerated());
+
+    // widening is left to reflection
+    setter.invoke(bean, new Object[] { 42 });
+    assertEquals(42L, getter.invoke(bean, NO_ARGUMENTS));
+    assertThrows(IllegalArgumentException.class, () -> setter.invoke(bean, new Object[] { null }));
+    assertThrows(IllegalArgumentException.class, () -> setter.invoke(bean, new Object[] { "42" }));
+  }
+
+  @Test
+  void shouldWrapExceptionThrownByGeneratedClass() throws Exception {
+    LambdaMethodInvoker setter = new LambdaMethodInvoker(Bean.class.getMethod("setName", String.class));
+    Bean bean = new Bean();
+    for (int i = 0; i < LambdaMethodInvoker.GENERATION_THRESHOLD; i++) {
+      setter.invoke(bean, new Object[] { "name" });
+    }
+    assertTrue(setter.isGenerated());
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> setter.invoke(bean, new Object[] { "fail" }));
+    assertEquals("fail", e.getTargetException().getMessage());
+  }
+
+  @Test
+  void shouldAccessPrivateFieldsThroughMethodHandles() throws Exception {
+    MethodHandleGetFieldInvoker getter = new MethodHandleGetFieldInvoker(Bean.class.getDeclaredField("id"));
+    MethodHandleSetFieldInvoker setter = new MethodHandleSetFieldInvoker(Bean.class.getDeclaredField("id"));
+    Bean bean = new Bean();
+    for (int i = 0; i < LambdaMethodInvoker.GENERATION_THRESHOLD; i++) {
+      setter.invoke(bean, new Object[] { i });
+      assertEquals(i, getter.invoke(bean, NO_ARGUMENTS));
+    }
+    assertTrue(getter.isGenerated());
+    assertTrue(setter.isGenerated());
+
+    setter.invoke(bean, new Object[] { 100 });
+    assertEquals(100, getter.invoke(bean, NO_ARGUMENTS));
+    setter.invoke(bean, new Object[] { (short) 7 });
+    assertEquals(7, getter.invoke(bean, NO_ARGUMENTS));
+  }
+
+  @Test
+  void shouldFallBackToReflectionForFinalFields() throws Exception {
+    MethodHandleSetFieldInvoker setter = new MethodHandleSetFieldInvoker(Bean.class.getDeclaredField("code"));
+    Bean bean = new Bean();
+    for (int i = 0; i <= LambdaMethodInvoker.GENERATION_THRESHOLD; i++) {
+      setter.invoke(bean, new Object[] { "code" + i });
+    }
+    assertFalse(setter.isGenerated());
+    assertEquals("code" + LambdaMethodInvoker.GENERATION_THRESHOLD, bean.code);
+  }
+
+  @Test
+  void shouldUseSameInstanceReturnedByGetter() throws Exception {
+    LambdaMethodInvoker getter = new LambdaMethodInvoker(Bean.class.getMethod("getSelf"));
+    Bean bean = new Bean();
+    for (int i = 0; i <= LambdaMethodInvoker.GENERATION_THRESHOLD; i++) {
+      assertSame(bean, getter.invoke(bean, NO_ARGUMENTS));
+    }
+    assertTrue(getter.isGenerated());
+  }
+
+  static class Bean {
+    private int id;
+    private final String code = null;
+    private String name;
+    private long age;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      if ("fail".equals(name)) {
+        throw new IllegalStateException(name);
+      }
+      this.name = name;
+    }
+
+    public long getAge() {
+      return age;
+    }
+
+    public void setAge(long age) {
+      this.age = age;
+    }
+
+    public Bean getSelf() {
+      return this;
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ognl.Ognl;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CompiledExpressionTest {
+
+  @Test
+  void shouldCompileTheSubset() {
+    assertThat(CompiledExpression.compile("name != null and name != ''")).isNotNull();
+    assertThat(CompiledExpression.compile("ids != null && ids.size() > 0")).isNotNull();
+    assertThat(CompiledExpression.compile("!(author.id gte 10 or author.bio.isEmpty())")).isNotNull();
+    assertThat(CompiledExpression.compile("_parameter.status == \"ACTIVE\"")).isNotNull();
+  }
+
+  @Test
+  void shouldLeaveTheRestToOgnl() {
+    assertThat(CompiledExpression.compile("type == 'A'")).isNull();
+    assertThat(CompiledExpression.compile("price > 1.5")).isNull();
+    assertThat(CompiledExpression.compile("'%' + name + '%'")).isNull();
+    assertThat(CompiledExpression.compile("ids[0] == 1")).isNull();
+    assertThat(CompiledExpression.compile("name.trim() == ''")).isNull();
+    assertThat(CompiledExpression.compile("@java.lang.Math@max(1, 2)")).isNull();
+    assertThat(CompiledExpression.compile("id in {1, 2}")).isNull();
+    assertThat(CompiledExpression.compile("a < b < c")).isNull();
+    assertThat(CompiledExpression.compile("a = 1")).isNull();
+  }
+
+  @Test
+  void shouldEvaluateLikeOgnl() throws Exception {
+    Author author = new Author(1, "cbegin", null, "cbegin@apache.org", "", Section.NEWS);
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("author", author);
+    parameter.put("ids", new ArrayList<>(Arrays.asList(1, 2, 3)));
+    parameter.put("emptyIds", new ArrayList<>());
+    parameter.put("count", 3L);
+    parameter.put("flag", Boolean.TRUE);
+    parameter.put("name", "");
+    parameter.put("nothing", null);
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+
+    List<String> expressions = new ArrayList<>(Arrays.asList(
+        "author", "author.id", "author.username == 'cbegin'", "author.username != \"cbegin\"", "author.password == null",
+        "author.password != null or author.id == 1", "author.id == count", "author.id < count", "author.id gte 1",
+        "ids.size() == count", "ids.size() > 3", "emptyIds.isEmpty()", "!emptyIds.isEmpty()", "not flag",
+        "flag and author", "nothing or flag", "nothing and flag", "name.isEmpty()", "name != null and name != ''",
+        "missing == null", "_parameter.author.bio.isEmpty()", "author.favouriteSection"));
+    for (String expression : expressions) {
+      CompiledExpression compiled = CompiledExpression.compile(expression);
+      assertThat(compiled).as(expression).isNotNull();
+      Object expected = Ognl.getValue(Ognl.parseExpression(expression),
+          Ognl.createDefaultContext(bindings, new OgnlMemberAccess(), new OgnlClassResolver(), null), bindings);
+      assertThat(compiled.getValue(bindings)).as(expression).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void shouldFallBackOnValuesOutsideOfTheSubset() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("price", 1.5d);
+    parameter.put("nothing", null);
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+    assertThat(CompiledExpression.compile("price > 1").getValue(bindings)).isSameAs(CompiledExpression.UNSUPPORTED);
+    assertThat(CompiledExpression.compile("nothing.id").getValue(bindings)).isSameAs(CompiledExpression.UNSUPPORTED);
+    assertThat(OgnlCache.getValue("price > 1", bindings)).isEqualTo(Boolean.TRUE);
+  }
+
+}
@@ -0,0 +1,101 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class XMLScriptBuilderTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldMergeAdjacentStaticText() {
+    SqlSource sqlSource = parse("<script>select *<![CDATA[ from ]]>blog</script>");
+    assertThat(sqlSource.getBoundSql(null).getSql()).isEqualTo("select *  from  blog");
+  }
+
+  @Test
+  void shouldRenderMergedTextInTrimLikeSeparateText() {
+    SqlSource merged = parse("<script>select * from blog <where><if test=\"id != null\">and<![CDATA[ id < #{id} ]]></if>"
+        + " and <![CDATA[ title <> 'x' ]]></where></script>");
+    SqlSource separate = new DynamicSqlSource(configuration, mixed(
+        new StaticTextSqlNode("select * from blog "),
+        new WhereSqlNode(configuration, mixed(
+            new IfSqlNode(mixed(new StaticTextSqlNode("and"), new StaticTextSqlNode(" id < #{id} ")), "id != null"),
+            new StaticTextSqlNode(" and "),
+            new StaticTextSqlNode(" title <> 'x' ")))));
+    assertSameBoundSql(merged, separate, Collections.singletonMap("id", 1));
+    assertSameBoundSql(merged, separate, Collections.singletonMap("id", null));
+  }
+
+  @Test
+  void shouldRenderMergedTextInForEachLikeSeparateText() {
+    SqlSource merged = parse("<script>select * from blog where id in"
+        + "<foreach collection=\"list\" item=\"id\" open=\"(\" separator=\",\" close=\")\">"
+        + "<![CDATA[ ]]>#{id}<![CDATA[ ]]><if test=\"id > 1\">+<![CDATA[1]]></if></foreach></script>");
+    SqlSource separate = new DynamicSqlSource(configuration, mixed(
+        new StaticTextSqlNode("select * from blog where id in"),
+        new ForEachSqlNode(configuration, mixed(
+            new StaticTextSqlNode(" "), new StaticTextSqlNode("#{id}"), new StaticTextSqlNode(" "),
+            new IfSqlNode(mixed(new StaticTextSqlNode("+"), new StaticTextSqlNode("1")), "id > 1")),
+            "list", null, "id", "(", ")", ",")));
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("list", Arrays.asList(1, 2, 3));
+    assertSameBoundSql(merged, separate, parameter);
+  }
+
+  @Test
+  void shouldOverridePrefixesIgnoringCase() {
+    SqlSource sqlSource = parse("<script>select * from blog <where> aNd  title = 'x' </where></script>");
+    assertThat(sqlSource.getBoundSql(null).getSql()).isEqualTo("select * from blog  WHERE   title = 'x'");
+  }
+
+  @Test
+  void shouldOverrideSuffixesOfNonAsciiText() {
+    SqlSource sqlSource = parse("<script>update blog <set>titel = 'Straße',</set></script>");
+    assertThat(sqlSource.getBoundSql(null).getSql()).isEqualTo("update blog  SET titel = 'Straße'");
+  }
+
+  private SqlSource parse(String script) {
+    return new XMLLanguageDriver().createSqlSource(configuration, script, Object.class);
+  }
+
+  private static MixedSqlNode mixed(SqlNode... contents) {
+    return new MixedSqlNode(Arrays.asList(contents));
+  }
+
+  private static void assertSameBoundSql(SqlSource actual, SqlSource expected, Object parameter) {
+    BoundSql actualBoundSql = actual.getBoundSql(parameter);
+    BoundSql expectedBoundSql = expected.getBoundSql(parameter);
+    assertThat(actualBoundSql.getSql()).isEqualTo(expectedBoundSql.getSql());
+    assertThat(actualBoundSql.getParameterMappings()).extracting(ParameterMapping::getProperty)
+        .isEqualTo(expectedBoundSql.getParameterMappings().stream().map(ParameterMapping::getProperty)
+            .collect(Collectors.toList()));
+  }
+
+}
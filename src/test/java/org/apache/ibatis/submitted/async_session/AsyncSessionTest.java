@@ -0,0 +1,169 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncSessionTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+  }
+
+  @Test
+  void shouldSelectAsynchronously() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    assertSame(asyncSession, sqlSessionFactory.openAsyncSession());
+
+    CompletableFuture<User> user = asyncSession.selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 1);
+    CompletableFuture<List<User>> users = asyncSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsersAsync");
+    assertEquals("User1", user.join().getName());
+    assertEquals(2, users.join().size());
+  }
+
+  @Test
+  void shouldCommitEachStatement() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    int count = asyncSession.insert("org.apache.ibatis.submitted.async_session.Mapper.insertUserAsync", new User(3, "User3")).join();
+    assertEquals(1, count);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("User3", sqlSession.getMapper(Mapper.class).getUser(3).getName());
+    }
+  }
+
+  @Test
+  void shouldRunWorkInOneTransaction() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    CompletableFuture<Integer> future = asyncSession.execute(session -> {
+      Mapper mapper = session.getMapper(Mapper.class);
+      mapper.insertUserAsync(new User(3, "User3"));
+      mapper.insertUserAsync(new User(4, "User4"));
+      throw new IllegalStateException("rollback");
+    });
+    CompletionException e = assertThrows(CompletionException.class, future::join);
+    assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(2, sqlSession.<User>selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsersAsync").size());
+    }
+  }
+
+  @Test
+  void shouldRunFutureReturningMapperMethodsAsynchronously() {
+    Mapper mapper = sqlSessionFactory.openAsyncSession().getMapper(Mapper.class);
+    CompletableFuture<User> user = mapper.getUserAsync(2);
+    CompletableFuture<List<User>> users = mapper.getUsersAsync().toCompletableFuture();
+    CompletableFuture<Map<Integer, User>> userMap = mapper.getUserMapAsync();
+    assertEquals("User2", user.join().getName());
+    assertEquals(2, users.join().size());
+    assertEquals("User1", userMap.join().get(1).getName());
+
+    assertEquals(1, mapper.insertUserAsync(new User(3, "User3")).join());
+    assertEquals(null, mapper.insertUserAsyncVoid(new User(4, "User4")).join());
+    // not a future, runs on the calling thread
+    assertEquals("User4", mapper.getUser(4).getName());
+  }
+
+  @Test
+  void shouldCompleteExceptionally() {
+    Mapper mapper = sqlSessionFactory.openAsyncSession().getMapper(Mapper.class);
+    CompletionException e = assertThrows(CompletionException.class, () -> mapper.getFromMissingTable().join());
+    assertThat(e.getCause()).isInstanceOf(PersistenceException.class);
+  }
+
+  @Test
+  void shouldRejectUnknownMapper() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    assertThrows(BindingException.class, () -> asyncSession.getMapper(Runnable.class));
+  }
+
+  @Test
+  void shouldReturnCompletedFutureFromSqlSession() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> user = mapper.getUserAsync(1);
+      assertTrue(user.isDone());
+      assertEquals("User1", user.join().getName());
+      CompletableFuture<Integer> count = mapper.insertUserAsync(new User(3, "User3"));
+      assertTrue(count.isDone());
+      assertEquals(1, count.join());
+    }
+  }
+
+  @Test
+  void shouldBoundConcurrency() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      sqlSessionFactory.getConfiguration().setAsyncExecutor(executor);
+      AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      List<CompletableFuture<User>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        futures.add(asyncSession.execute(session -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(5);
+            return session.selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 1);
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          } finally {
+            running.decrementAndGet();
+          }
+        }));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      assertThat(maxRunning.get()).isBetween(1, 2);
+      futures.forEach(f -> assertEquals("User1", f.join().getName()));
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+}
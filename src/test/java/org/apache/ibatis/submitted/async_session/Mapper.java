@@ -0,0 +1,51 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.MapKey;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select * from users where id = #{id}")
+  User getUser(Integer id);
+
+  @Select("select * from users where id = #{id}")
+  CompletableFuture<User> getUserAsync(Integer id);
+
+  @Select("select * from users order by id")
+  CompletionStage<List<User>> getUsersAsync();
+
+  @MapKey("id")
+  @Select("select * from users order by id")
+  CompletableFuture<Map<Integer, User>> getUserMapAsync();
+
+  @Select("select * from missing_table")
+  CompletableFuture<User> getFromMissingTable();
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  CompletableFuture<Integer> insertUserAsync(User user);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  CompletableFuture<Void> insertUserAsyncVoid(User user);
+
+}
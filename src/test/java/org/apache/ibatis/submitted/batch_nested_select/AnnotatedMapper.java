@@ -0,0 +1,43 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Many;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface AnnotatedMapper {
+
+  @Results({
+      @Result(property = "id", column = "id", id = true),
+      @Result(property = "posts", column = "id", many = @Many(select = "selectPosts", batchSize = 10, foreignColumn = "blog_id"))
+  })
+  @Select("select id, title from blog order by id")
+  List<Blog> selectBlogs();
+
+  @Select({
+      "<script>",
+      "select id, blog_id, subject from post where blog_id in",
+      "<foreach collection='list' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+      "order by blog_id, id",
+      "</script>"
+  })
+  List<Post> selectPosts(List<Integer> blogIds);
+
+}
@@ -0,0 +1,170 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchNestedSelectTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static QueryRecorder recorder;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    recorder = new QueryRecorder();
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_nested_select/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clearRecordedQueries() {
+    recorder.queries.clear();
+  }
+
+  @Test
+  void shouldLoadCollectionsOfAllRowsWithOneQuery() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+      assertThat(blogs).hasSize(3);
+      assertThat(blogs.get(0).getPosts()).extracting(Post::getSubject).containsExactly("Post 1-1", "Post 1-2");
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post 2-1");
+      assertThat(blogs.get(2).getPosts()).isEmpty();
+      assertThat(recorder.queries).hasSize(2);
+    }
+  }
+
+  @Test
+  void shouldSplitKeysIntoBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogsInBatchesOfTwo();
+      assertThat(blogs.get(0).getPosts()).extracting(Post::getSubject).containsExactly("Post 1-1", "Post 1-2");
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post 2-1");
+      assertThat(blogs.get(2).getPosts()).isEmpty();
+      assertThat(recorder.queries).hasSize(3);
+    }
+  }
+
+  @Test
+  void shouldLoadLazyAssociationsOfAllRowsOnFirstAccess() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogsWithLazyAuthor();
+      assertThat(recorder.queries).hasSize(1);
+      assertThat(blogs.get(1).getAuthor().getName()).isEqualTo("Bob");
+      assertThat(recorder.queries).hasSize(2);
+      assertThat(blogs.get(0).getAuthor().getName()).isEqualTo("Ann");
+      assertThat(blogs.get(2).getAuthor().getName()).isEqualTo("Ann");
+      assertThat(recorder.queries).hasSize(2);
+    }
+  }
+
+  @Test
+  void shouldMatchRowsOnCompositeKeys() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Post> posts = sqlSession.getMapper(Mapper.class).selectPostsWithComments();
+      assertThat(posts).hasSize(3);
+      assertThat(posts.get(0).getComments()).extracting(Comment::getText).containsExactly("Comment 1-1-a", "Comment 1-1-b");
+      assertThat(posts.get(1).getComments()).extracting(Comment::getText).containsExactly("Comment 1-2-a");
+      assertThat(posts.get(2).getComments()).extracting(Comment::getText).containsExactly("Comment 2-1-a");
+      assertThat(recorder.queries).hasSize(2);
+    }
+  }
+
+  @Test
+  void shouldBatchNestedSelectsDeclaredWithAnnotations() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(AnnotatedMapper.class).selectBlogs();
+      assertThat(blogs.get(0).getPosts()).extracting(Post::getSubject).containsExactly("Post 1-1", "Post 1-2");
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post 2-1");
+      assertThat(blogs.get(2).getPosts()).isEmpty();
+      assertThat(recorder.queries).hasSize(2);
+    }
+  }
+
+  @Test
+  void shouldLoadEagerMappingsBeforeCallingTheResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<Post>> posts = new ArrayList<>();
+      sqlSession.select("org.apache.ibatis.submitted.batch_nested_select.Mapper.selectBlogs",
+          context -> posts.add(((Blog) context.getResultObject()).getPosts()));
+      assertThat(posts).hasSize(3);
+      assertThat(posts.get(0)).extracting(Post::getSubject).containsExactly("Post 1-1", "Post 1-2");
+      assertThat(posts.get(1)).extracting(Post::getSubject).containsExactly("Post 2-1");
+      assertThat(posts.get(2)).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldLoadEagerMappingsOfSelectMapValues() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<Integer, Blog> blogs = sqlSession.selectMap("org.apache.ibatis.submitted.batch_nested_select.Mapper.selectBlogs", "id");
+      assertThat(blogs).hasSize(3);
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post 1-1", "Post 1-2");
+      assertThat(blogs.get(2).getPosts()).extracting(Post::getSubject).containsExactly("Post 2-1");
+      assertThat(blogs.get(3).getPosts()).isEmpty();
+      assertThat(recorder.queries).hasSize(2);
+    }
+  }
+
+  @Test
+  void shouldLoadCircularMappings() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).selectBlogsWithAuthor();
+      assertThat(blogs).extracting(Blog::getTitle).containsExactly("Blog 1", "Blog 2", "Blog 3");
+      assertThat(blogs).extracting(blog -> blog.getAuthor().getName()).containsExactly("Ann", "Bob", "Ann");
+      assertThat(blogs.get(0).getAuthor().getBlogs()).extracting(Blog::getTitle).containsExactly("Blog 1", "Blog 3");
+      assertThat(blogs.get(1).getAuthor().getBlogs()).extracting(Blog::getTitle).containsExactly("Blog 2");
+      assertThat(blogs.get(0).getAuthor().getBlogs().get(1).getAuthor().getName()).isEqualTo("Ann");
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }))
+  public static class QueryRecorder implements Interceptor {
+    private final List<String> queries = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      queries.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}
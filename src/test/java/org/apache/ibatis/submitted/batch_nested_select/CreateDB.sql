@@ -0,0 +1,59 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table comment if exists;
+drop table post if exists;
+drop table blog if exists;
+drop table author if exists;
+
+create table author (
+  id int,
+  name varchar(20)
+);
+
+create table blog (
+  id int,
+  title varchar(20),
+  author_id int
+);
+
+create table post (
+  id int,
+  blog_id int,
+  subject varchar(20)
+);
+
+create table comment (
+  blog_id int,
+  post_id int,
+  text varchar(20)
+);
+
+insert into author (id, name) values(1, 'Ann');
+insert into author (id, name) values(2, 'Bob');
+
+insert into blog (id, title, author_id) values(1, 'Blog 1', 1);
+insert into blog (id, title, author_id) values(2, 'Blog 2', 2);
+insert into blog (id, title, author_id) values(3, 'Blog 3', 1);
+
+insert into post (id, blog_id, subject) values(1, 1, 'Post 1-1');
+insert into post (id, blog_id, subject) values(2, 1, 'Post 1-2');
+insert into post (id, blog_id, subject) values(1, 2, 'Post 2-1');
+
+insert into comment (blog_id, post_id, text) values(1, 1, 'Comment 1-1-a');
+insert into comment (blog_id, post_id, text) values(1, 1, 'Comment 1-1-b');
+insert into comment (blog_id, post_id, text) values(1, 2, 'Comment 1-2-a');
+insert into comment (blog_id, post_id, text) values(2, 1, 'Comment 2-1-a');
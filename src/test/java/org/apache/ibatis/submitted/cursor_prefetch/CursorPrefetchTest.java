@@ -0,0 +1,243 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_prefetch;
+
+import static com.googlecode.catchexception.apis.BDDCatchException.caughtException;
+import static com.googlecode.catchexception.apis.BDDCatchException.when;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CursorPrefetchTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_prefetch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_prefetch/CreateDB.sql");
+  }
+
+  @Test
+  void shouldReadAllRowsAhead() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      Assertions.assertTrue(cursor instanceof PrefetchingCursor);
+      Assertions.assertFalse(cursor.isOpen());
+      Assertions.assertEquals(-1, cursor.getCurrentIndex());
+
+      Iterator<User> iterator = cursor.iterator();
+      Assertions.assertTrue(iterator.hasNext());
+      Assertions.assertTrue(cursor.isOpen());
+      Assertions.assertEquals(-1, cursor.getCurrentIndex());
+
+      List<String> names = new ArrayList<>();
+      while (iterator.hasNext()) {
+        names.add(iterator.next().getName());
+        Assertions.assertEquals(names.size() - 1, cursor.getCurrentIndex());
+      }
+      Assertions.assertEquals(7, names.size());
+      Assertions.assertEquals("User1", names.get(0));
+      Assertions.assertEquals("User7", names.get(6));
+      Assertions.assertFalse(cursor.isOpen());
+      Assertions.assertTrue(cursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldApplyRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsers(new RowBounds(1, 3));
+      Iterator<User> iterator = cursor.iterator();
+
+      Assertions.assertEquals("User2", iterator.next().getName());
+      Assertions.assertEquals(1, cursor.getCurrentIndex());
+      Assertions.assertEquals("User3", iterator.next().getName());
+      Assertions.assertEquals("User4", iterator.next().getName());
+      Assertions.assertEquals(3, cursor.getCurrentIndex());
+      Assertions.assertFalse(iterator.hasNext());
+      Assertions.assertTrue(cursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldKeepNullRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getNullUsers().forEach(users::add);
+      Assertions.assertEquals(3, users.size());
+      Assertions.assertNull(users.get(0));
+      Assertions.assertEquals("Kate", users.get(1).getName());
+      Assertions.assertNull(users.get(2));
+    }
+  }
+
+  @Test
+  void shouldStopReadingAheadOnClose() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Cursor<User> cursor = mapper.getAllUsers();
+      Iterator<User> iterator = cursor.iterator();
+      Assertions.assertEquals("User1", iterator.next().getName());
+
+      cursor.close();
+      Assertions.assertFalse(cursor.isOpen());
+      Assertions.assertFalse(cursor.isConsumed());
+      Assertions.assertFalse(iterator.hasNext());
+
+      // the connection is no longer used by the background thread
+      Assertions.assertEquals(7, mapper.getUserList().size());
+    }
+  }
+
+  @Test
+  void shouldCloseCursorOnSessionClose() {
+    Cursor<User> cursor;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      Iterator<User> iterator = cursor.iterator();
+      Assertions.assertEquals("User1", iterator.next().getName());
+      Assertions.assertTrue(cursor.isOpen());
+    }
+    Assertions.assertFalse(cursor.isOpen());
+    Assertions.assertFalse(cursor.isConsumed());
+  }
+
+  @Test
+  void shouldRethrowMappingErrorsToTheCaller() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getFailingUsers();
+      Iterator<User> iterator = cursor.iterator();
+      Assertions.assertEquals(Integer.valueOf(1), iterator.next().getId());
+      Assertions.assertEquals(Integer.valueOf(2), iterator.next().getId());
+
+      when(iterator::next);
+      then(caughtException()).isInstanceOf(RuntimeException.class);
+      Assertions.assertFalse(cursor.isOpen());
+      Assertions.assertFalse(iterator.hasNext());
+    }
+  }
+
+  @Test
+  void shouldNotReadAheadOnTheAsyncExecutor() {
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(command -> {
+      throw new RejectedExecutionException();
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      Assertions.assertTrue(cursor instanceof PrefetchingCursor);
+      List<User> users = new ArrayList<>();
+      cursor.forEach(users::add);
+      Assertions.assertEquals(7, users.size());
+    } finally {
+      sqlSessionFactory.getConfiguration().setAsyncExecutor(null);
+    }
+  }
+
+  @Test
+  void shouldReadOnTheCallingThreadWhenTheExecutorRejectsTheTask() {
+    Executor executor = command -> {
+      throw new RejectedExecutionException();
+    };
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = new PrefetchingCursor<>(sqlSession.getMapper(Mapper.class).getAllUsers(), 2, executor);
+      Iterator<User> iterator = cursor.iterator();
+      Assertions.assertEquals("User1", iterator.next().getName());
+      Assertions.assertEquals(0, cursor.getCurrentIndex());
+      Assertions.assertTrue(cursor.isOpen());
+
+      List<User> users = new ArrayList<>();
+      iterator.forEachRemaining(users::add);
+      Assertions.assertEquals(6, users.size());
+      Assertions.assertEquals(6, cursor.getCurrentIndex());
+      Assertions.assertTrue(cursor.isConsumed());
+      Assertions.assertFalse(cursor.isOpen());
+    }
+  }
+
+  @Test
+  void shouldResetTheErrorContextOfTheBackgroundThread() throws Exception {
+    AtomicReference<String> errorContext = new AtomicReference<>();
+    Thread[] threads = new Thread[1];
+    Executor executor = command -> {
+      threads[0] = new Thread(() -> {
+        ErrorContext.instance().resource("a resource").activity("reading rows ahead");
+        command.run();
+        errorContext.set(ErrorContext.instance().toString());
+      });
+      threads[0].start();
+    };
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = new ArrayList<>();
+      new PrefetchingCursor<>(sqlSession.getMapper(Mapper.class).getAllUsers(), 2, executor).forEach(users::add);
+      Assertions.assertEquals(7, users.size());
+    }
+    threads[0].join();
+    Assertions.assertEquals(ErrorContext.instance().reset().toString(), errorContext.get());
+  }
+
+  @Test
+  void shouldNotReadAheadWithNestedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsersWithLazyName();
+      Assertions.assertFalse(cursor instanceof PrefetchingCursor);
+
+      List<String> names = new ArrayList<>();
+      cursor.forEach(user -> names.add(user.getName()));
+      Assertions.assertEquals(7, names.size());
+      Assertions.assertEquals("User1", names.get(0));
+      Assertions.assertEquals("User7", names.get(6));
+    }
+  }
+
+  @Test
+  void shouldNotReadAheadWithNestedSelectsOfNestedResultMaps() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsersWithNestedLazyName();
+      Assertions.assertFalse(cursor instanceof PrefetchingCursor);
+
+      List<String> names = new ArrayList<>();
+      cursor.forEach(user -> names.add(user.getFriend().getName()));
+      Assertions.assertEquals(7, names.size());
+      Assertions.assertEquals("User1", names.get(0));
+      Assertions.assertEquals("User7", names.get(6));
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_prefetch;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.FetchType;
+import org.apache.ibatis.session.RowBounds;
+
+public interface Mapper {
+
+  @Select("select * from users order by id")
+  Cursor<User> getAllUsers();
+
+  @Select("select * from users order by id")
+  Cursor<User> getUsers(RowBounds rowBounds);
+
+  @Select("select * from users order by id")
+  List<User> getUserList();
+
+  @Select({
+    "select null id, null name from (values (0))",
+    "union all",
+    "select 99 id, 'Kate' name from (values (0))",
+    "union all",
+    "select null id, null name from (values (0))"
+  })
+  Cursor<User> getNullUsers();
+
+  @Select("select case when id = 3 then 'x' else cast(id as varchar(10)) end id, name from users order by name")
+  Cursor<User> getFailingUsers();
+
+  @Select("select id from users order by id")
+  @Results({
+    @Result(property = "id", column = "id", id = true),
+    @Result(property = "name", column = "id", one = @One(select = "getName", fetchType = FetchType.LAZY))
+  })
+  Cursor<User> getUsersWithLazyName();
+
+  @Select("select id, id friend_id from users order by id")
+  @Results({
+    @Result(property = "id", column = "id", id = true),
+    @Result(property = "friend", one = @One(resultMap = "userWithLazyName", columnPrefix = "friend_"))
+  })
+  Cursor<User> getUsersWithNestedLazyName();
+
+  @Select("select id from users where id = #{id}")
+  @Results(id = "userWithLazyName", value = {
+    @Result(property = "id", column = "id", id = true),
+    @Result(property = "name", column = "id", one = @One(select = "getName", fetchType = FetchType.LAZY))
+  })
+  User getUserWithLazyName(Integer id);
+
+  @Select("select name from users where id = #{id}")
+  String getName(Integer id);
+
+}
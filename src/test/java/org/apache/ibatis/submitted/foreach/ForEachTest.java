@@ -22,11 +22,22 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.scripting.xmltags.XMLScriptBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -139,4 +150,116 @@ class ForEachTest {
     }
   }
 
+  @Test
+  void shouldIterateOverPrimitiveArrays() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assertions.assertEquals(3, mapper.countByIds(new int[] { 1, 3, 5 }));
+      Assertions.assertEquals(2, mapper.countByIds(new long[] { 2, 4, 8 }));
+      Assertions.assertEquals(2, mapper.countByNames(new String[] { "User1", "User6" }));
+    }
+  }
+
+  @Test
+  void shouldIterateOverListsOfDifferentElementTypes() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assertions.assertEquals(2, mapper.countByIds(Arrays.asList(1, 2)));
+      Assertions.assertEquals(2, mapper.countByIds(Arrays.asList(3L, 4L)));
+      Assertions.assertEquals(1, mapper.countByIds(Collections.singletonList(6)));
+      Assertions.assertEquals(0, mapper.countByNames(new ArrayList<>(Arrays.asList("User7", "User8"))));
+    }
+  }
+
+  @Test
+  void shouldBindArrayElementsByPosition() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("ids", new long[] { 1, 2, 3 });
+    BoundSql boundSql = configuration.getMappedStatement("countByIds").getBoundSql(parameter);
+    then(boundSql.getSql()).isEqualToIgnoringWhitespace("select count(*) from users where id in ( ? , ? , ? )");
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    then(parameterMappings).hasSize(3);
+    for (int i = 0; i < parameterMappings.size(); i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      then(parameterMapping.getJavaType()).isEqualTo(Long.class);
+      then(boundSql.getAdditionalParameter(parameterMapping.getProperty())).isEqualTo(i + 1L);
+    }
+  }
+
+  @Test
+  void shouldRunSplitCollectionInParts() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("ids", new int[] { 5, 1, 4, 2, 3 });
+    BoundSql boundSql = configuration.getMappedStatement("selectIdsInParts").getBoundSql(parameter);
+    then(boundSql.getParameterMappings()).hasSize(2);
+    then(boundSql.getPartitions().get(0)).isSameAs(boundSql);
+    then(boundSql.getPartitions()).extracting(partition -> partition.getParameterMappings().size())
+        .containsExactly(2, 2, 1);
+    then(boundSql.getPartitions().get(1).getAdditionalParameter(
+        boundSql.getPartitions().get(1).getParameterMappings().get(0).getProperty())).isEqualTo(4);
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      then(mapper.selectIdsInParts(new int[] { 5, 1, 4, 2, 3 })).containsExactly(1, 5, 2, 4, 3);
+      then(mapper.selectIdsInParts(Arrays.asList(6, 1))).containsExactly(1, 6);
+    }
+  }
+
+  @Test
+  void shouldRunSplitIterableInParts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<String> names = mapper.selectNamesInParts(new LinkedHashSet<>(Arrays.asList("User1", "User2", "User7", "User3")));
+      then(names).containsExactlyInAnyOrder("User1", "User2", "User3");
+    }
+  }
+
+  @Test
+  void shouldCacheSplitCollectionsByAllTheirParts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      then(mapper.selectIdsInParts(new int[] { 1, 5, 4 })).containsExactly(1, 5, 4);
+      then(mapper.selectIdsInParts(new int[] { 1, 5, 2 })).containsExactly(1, 5, 2);
+    }
+  }
+
+  @Test
+  void shouldFailToRunSplitCollectionInASingleExecution() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("ids", new int[] { 5, 1, 4 });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      when(() -> sqlSession.selectList("selectIdsInParts", parameter, new RowBounds(0, 2)));
+      then(caughtException()).isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("selectIdsInParts").hasMessageContaining("with RowBounds");
+
+      when(() -> sqlSession.selectCursor("selectIdsInParts", parameter));
+      then(caughtException()).isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("selectIdsInParts").hasMessageContaining("by a cursor");
+
+      parameter.put("ids", new int[] { 5, 1 });
+      then(sqlSession.selectList("selectIdsInParts", parameter, new RowBounds(1, 1))).containsExactly(5);
+    }
+  }
+
+  @Test
+  void shouldRejectSplitForEachInAnotherForEach() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    XNode script = new XPathParser("<script>select 1 <foreach collection=\"lists\" item=\"list\">"
+        + "<foreach collection=\"list\" item=\"id\" splitSize=\"2\">#{id}</foreach></foreach></script>")
+        .evalNode("/script");
+    when(() -> new XMLScriptBuilder(configuration, script).parseScriptNode());
+    then(caughtException()).isInstanceOf(BuilderException.class).hasMessageContaining("nested");
+  }
+
+  @Test
+  void shouldRejectSeveralSplitForEach() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    XNode script = new XPathParser("<script>select 1 <foreach collection=\"a\" item=\"id\" splitSize=\"2\">#{id}</foreach>"
+        + "<foreach collection=\"b\" item=\"id\" splitSize=\"2\">#{id}</foreach></script>").evalNode("/script");
+    when(() -> new XMLScriptBuilder(configuration, script).parseScriptNode());
+    then(caughtException()).isInstanceOf(BuilderException.class).hasMessageContaining("Only one foreach");
+  }
+
 }
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.submitted.foreach;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.ibatis.annotations.Param;
@@ -34,4 +35,12 @@ public interface Mapper {
   int itemVariableConflict(@Param("id") Integer id, @Param("ids") List<Integer> ids, @Param("ids2") List<Integer> ids2);
 
   int indexVariableConflict(@Param("idx") Integer id, @Param("idxs") List<Integer> ids, @Param("idxs2") List<Integer> ids2);
+
+  int countByIds(@Param("ids") Object ids);
+
+  int countByNames(@Param("names") Object names);
+
+  List<Integer> selectIdsInParts(@Param("ids") Object ids);
+
+  List<String> selectNamesInParts(@Param("names") Collection<String> names);
 }
@@ -0,0 +1,164 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.grouped_batch_inserts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GroupedBatchInsertsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static PrepareRecorder recorder;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/grouped_batch_inserts/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    recorder = new PrepareRecorder();
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+  }
+
+  @BeforeEach
+  void createTables() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/grouped_batch_inserts/CreateDB.sql");
+    recorder.statements.clear();
+  }
+
+  @Test
+  void shouldGroupAlternatingInserts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 3; i++) {
+        mapper.insertParent(i, "Parent" + i);
+        mapper.insertChild(i * 10, i, "Child" + i + "-1");
+        mapper.insertChild(i * 10 + 1, i, "Child" + i + "-2");
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(recorder.statements).hasSize(2);
+      assertThat(results).extracting(BatchResult::getSql).containsExactly(
+          "insert into parent (id, name) values (?, ?)",
+          "insert into child (id, parent_id, name) values (?, ?, ?)");
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1);
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1, 1, 1, 1, 1, 1);
+
+      assertThat(mapper.getParentNames()).containsExactly("Parent1", "Parent2", "Parent3");
+      assertThat(mapper.getChildNames()).containsExactly("Child1-1", "Child1-2", "Child2-1", "Child2-2", "Child3-1",
+          "Child3-2");
+    }
+  }
+
+  @Test
+  void shouldNotGroupAcrossOtherStatements() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "a");
+      mapper.insertChild(10, 1, "b");
+      mapper.updateParent(1, "c");
+      mapper.insertParent(2, "d");
+      mapper.insertChild(20, 2, "e");
+      mapper.copyChild(20);
+      mapper.insertParent(3, "f");
+      mapper.insertChild(30, 3, "g");
+      mapper.insertParent(4, "h");
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).extracting(BatchResult::getSql).containsExactly(
+          "insert into parent (id, name) values (?, ?)",
+          "insert into child (id, parent_id, name) values (?, ?, ?)",
+          "update parent set name = ? where id = ?",
+          "insert into parent (id, name) values (?, ?)",
+          "insert into child (id, parent_id, name) values (?, ?, ?)",
+          "insert into child (id, parent_id, name) select id + 100, parent_id, name from child where id = ?",
+          "insert into parent (id, name) values (?, ?)",
+          "insert into child (id, parent_id, name) values (?, ?, ?)");
+      assertThat(results.get(6).getUpdateCounts()).containsExactly(1, 1);
+
+      assertThat(mapper.getParentNames()).containsExactly("c", "d", "f", "h");
+      assertThat(mapper.getChildNames()).containsExactly("b", "e", "g", "e");
+    }
+  }
+
+  @Test
+  void shouldGroupInsertsWithSelectInLiterals() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "a");
+      mapper.insertSelectChild(10, 1);
+      mapper.insertParent(2, "b");
+      mapper.insertSelectChild(20, 2);
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).extracting(BatchResult::getSql).containsExactly(
+          "insert into parent (id, name) values (?, ?)",
+          "insert into child (id, parent_id, name) values (?, ?, 'select')");
+      assertThat(mapper.getChildNames()).containsExactly("select", "select");
+    }
+  }
+
+  @Test
+  void shouldNotGroupAcrossInsertsWithSubqueries() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "a");
+      mapper.insertChildOfLastParent(10, "b");
+      mapper.insertParent(2, "c");
+      mapper.insertChildOfLastParent(20, "d");
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).hasSize(4);
+      assertThat(mapper.getChildParentIds()).containsExactly(1, 2);
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class PrepareRecorder implements Interceptor {
+    private final List<String> statements = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      statements.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.grouped_batch_inserts;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+public interface Mapper {
+
+  @Insert("insert into parent (id, name) values (#{id}, #{name})")
+  int insertParent(@Param("id") int id, @Param("name") String name);
+
+  @Insert("insert into child (id, parent_id, name) values (#{id}, #{parentId}, #{name})")
+  int insertChild(@Param("id") int id, @Param("parentId") int parentId, @Param("name") String name);
+
+  @Insert("insert into child (id, parent_id, name) values (#{id}, #{parentId}, 'select')")
+  int insertSelectChild(@Param("id") int id, @Param("parentId") int parentId);
+
+  @Insert("insert into child (id, parent_id, name) values (#{id}, (select max(id) from parent), #{name})")
+  int insertChildOfLastParent(@Param("id") int id, @Param("name") String name);
+
+  @Insert("insert into child (id, parent_id, name) select id + 100, parent_id, name from child where id = #{id}")
+  int copyChild(int id);
+
+  @Update("update parent set name = #{name} where id = #{id}")
+  int updateParent(@Param("id") int id, @Param("name") String name);
+
+  @Select("select name from parent order by id")
+  List<String> getParentNames();
+
+  @Select("select name from child order by id")
+  List<String> getChildNames();
+
+  @Select("select parent_id from child order by id")
+  List<Integer> getChildParentIds();
+
+}
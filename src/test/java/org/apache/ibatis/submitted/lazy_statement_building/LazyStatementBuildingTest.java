@@ -0,0 +1,126 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_statement_building;
+
+import static com.googlecode.catchexception.apis.BDDCatchException.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.LazyMappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyStatementBuildingTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.lazy_statement_building.Mapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/lazy_statement_building/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/lazy_statement_building/CreateDB.sql");
+  }
+
+  @Test
+  void shouldBuildStatementsOnFirstUse() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    LazyMappedStatement getUser = configuration.getLazyMappedStatement(NAMESPACE + "getUser");
+    LazyMappedStatement getUsers = configuration.getLazyMappedStatement(NAMESPACE + "getUsers");
+    assertThat(getUser.isBuilt()).isFalse();
+    assertThat(getUsers.isBuilt()).isFalse();
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = mapper.getUser(1);
+      assertThat(user.getName()).isEqualTo("User1");
+      User filter = new User();
+      filter.setName("User2");
+      assertThat(mapper.getUsers(filter)).extracting(User::getId).containsExactly(2);
+      assertThat(mapper.getUsers(new User())).extracting(User::getId).containsExactly(1, 2);
+    }
+
+    assertThat(getUser.isBuilt()).isTrue();
+    assertThat(getUsers.isBuilt()).isTrue();
+    assertThat(configuration.getMappedStatement(NAMESPACE + "getUser")).isSameAs(getUser.getMappedStatement());
+    assertThat(configuration.getLazyMappedStatement(NAMESPACE + "getUserWithUnknownResultMap").isBuilt()).isFalse();
+  }
+
+  @Test
+  void shouldListStatementsWithoutDuplicates() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertThat(configuration.hasStatement(NAMESPACE + "getUsers")).isTrue();
+    assertThat(configuration.getMappedStatementNames()).contains(NAMESPACE + "getUser", NAMESPACE + "insertUser");
+    assertThat(configuration.getLazyMappedStatement(NAMESPACE + "insertUser")).isNull();
+  }
+
+  @Test
+  void shouldRestoreTheErrorContextWhenBuildingFails() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    ErrorContext.instance().reset();
+    when(() -> configuration.getMappedStatement(NAMESPACE + "getUserWithUnknownResultMap"));
+    then(caughtException()).isInstanceOf(BuilderException.class)
+        .hasMessageContaining("getUserWithUnknownResultMap");
+    assertThat(ErrorContext.instance().toString()).doesNotContain("building statement");
+  }
+
+  @Test
+  void shouldBuildStatementsWithSelectKeyUpfront() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertThat(configuration.getLazyMappedStatement(NAMESPACE + "insertUser")).isNull();
+    assertThat(configuration.hasKeyGenerator(NAMESPACE + "insertUser!selectKey")).isTrue();
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setName("User3");
+      mapper.insertUser(user);
+      assertThat(user.getId()).isEqualTo(3);
+      assertThat(mapper.getUser(3).getName()).isEqualTo("User3");
+    }
+  }
+
+  @Test
+  void shouldReportErrorsOnFirstUse() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      when(() -> sqlSession.selectOne(NAMESPACE + "getUserWithUnknownResultMap", 1));
+      then(caughtException()).isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("unknownResult")
+          .hasMessageContaining("org/apache/ibatis/submitted/lazy_statement_building/Mapper.xml");
+
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      when(() -> mapper.getUserWithUnknownResultMap(1));
+      then(caughtException()).isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("unknownResult");
+    }
+  }
+
+}
@@ -0,0 +1,52 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multirow_insert;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+public interface Mapper {
+
+  @Insert("insert into users (name) values (#{name})")
+  @Options(useGeneratedKeys = true, keyProperty = "id")
+  int insertUser(User user);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  int insertUserWithId(User user);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name,typeHandler=org.apache.ibatis.submitted.multirow_insert.LoggingTypeHandler})")
+  int insertUserLogging(User user);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name,typeHandler=org.apache.ibatis.submitted.multirow_insert.UnwrappingTypeHandler})")
+  int insertUserUnwrapping(User user);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name,typeHandler=org.apache.ibatis.submitted.multirow_insert.FailingTypeHandler})")
+  int insertUserFailing(User user);
+
+  @Insert("insert into users (id, name) select id + 10, name from users where id = #{id}")
+  int copyUser(Integer id);
+
+  @Update("update users set name = #{name} where id = #{id}")
+  int updateUser(User user);
+
+  @Select("select * from users order by id")
+  List<User> getUsers();
+
+}
@@ -0,0 +1,237 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multirow_insert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static PrepareRecorder recorder;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multirow_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    recorder = new PrepareRecorder();
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+  }
+
+  @BeforeEach
+  void createTable() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/multirow_insert/CreateDB.sql");
+    recorder.statements.clear();
+  }
+
+  @Test
+  void shouldCombineRowsIntoMultiRowInserts() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 7; i++) {
+        User user = new User("User" + i);
+        users.add(user);
+        mapper.insertUser(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      // two statements of three rows and a statement of one row
+      assertThat(recorder.statements).hasSize(2);
+      assertThat(results).hasSize(2);
+      assertThat(results.get(0).getSql()).isEqualTo("insert into users (name) values (?),(?),(?)");
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(3, 3);
+      assertThat(results.get(0).getParameterObjects()).containsExactlyElementsOf(users.subList(0, 6));
+      assertThat(results.get(1).getSql()).isEqualTo("insert into users (name) values (?)");
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1);
+      assertThat(results.get(1).getParameterObjects()).containsExactly(users.get(6));
+    }
+    assertThat(users).extracting(User::getId).containsExactly(1, 2, 3, 4, 5, 6, 7);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUsers()).extracting(User::getId, User::getName)
+          .containsExactly(tuple(1, "User1"), tuple(2, "User2"), tuple(3, "User3"), tuple(4, "User4"),
+              tuple(5, "User5"), tuple(6, "User6"), tuple(7, "User7"));
+    }
+  }
+
+  @Test
+  void shouldKeepTheOrderOfOtherStatements() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithId(user(1, "a"));
+      mapper.insertUserWithId(user(2, "b"));
+      mapper.updateUser(user(1, "c"));
+      mapper.insertUserWithId(user(3, "d"));
+      mapper.copyUser(3);
+      mapper.insertUserWithId(user(4, "e"));
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).extracting(BatchResult::getSql).containsExactly(
+          "insert into users (id, name) values (?, ?),(?, ?)",
+          "update users set name = ? where id = ?",
+          "insert into users (id, name) values (?, ?)",
+          "insert into users (id, name) select id + 10, name from users where id = ?",
+          "insert into users (id, name) values (?, ?)");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUsers()).extracting(User::getName)
+          .containsExactly("c", "b", "d", "e", "d");
+    }
+  }
+
+  @Test
+  void shouldInsertTheValuesOfEachCallWhenTheParameterIsReused() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User(null);
+      for (int i = 1; i <= 4; i++) {
+        user.setId(i);
+        user.setName("User" + i);
+        mapper.insertUserWithId(user);
+      }
+      sqlSession.flushStatements();
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUsers()).extracting(User::getId, User::getName)
+          .containsExactly(tuple(1, "User1"), tuple(2, "User2"), tuple(3, "User3"), tuple(4, "User4"));
+    }
+  }
+
+  @Test
+  void shouldNotInsertPendingRowsOnRollback() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(new User("User1"));
+      mapper.insertUser(new User("User2"));
+      sqlSession.rollback();
+      assertThat(mapper.getUsers()).isEmpty();
+      assertThat(recorder.statements).hasSize(1);
+    }
+  }
+
+  @Test
+  void shouldCombineRowsWhoseTypeHandlerPrintsTheStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserLogging(user(1, "a"));
+      mapper.insertUserLogging(user(2, "b"));
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).extracting(BatchResult::getSql).containsExactly("insert into users (id, name) values (?, ?),(?, ?)");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUsers()).extracting(User::getName).containsExactly("a", "b");
+    }
+  }
+
+  @Test
+  void shouldBatchRowsWhoseTypeHandlerUnwrapsTheStatementOneByOne() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithId(user(1, "a"));
+      mapper.insertUserWithId(user(2, "b"));
+      mapper.insertUserUnwrapping(user(3, "c"));
+      mapper.insertUserUnwrapping(user(4, "d"));
+      mapper.insertUserUnwrapping(user(5, "e"));
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).hasSize(2);
+      assertThat(results.get(0).getSql()).isEqualTo("insert into users (id, name) values (?, ?),(?, ?)");
+      assertThat(results.get(1).getSql()).isEqualTo("insert into users (id, name) values (?, ?)");
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1, 1, 1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUsers()).extracting(User::getName)
+          .containsExactly("a", "b", "c", "d", "e");
+    }
+  }
+
+  @Test
+  void shouldRethrowTheFailuresOfTypeHandlers() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithId(user(1, "a"));
+      assertThatThrownBy(() -> mapper.insertUserFailing(user(2, "b"))).isInstanceOf(PersistenceException.class)
+          .hasRootCauseInstanceOf(SQLException.class).hasRootCauseMessage("Invalid name b");
+    }
+  }
+
+  @Test
+  void shouldBatchInsertsThatCannotBeCombinedTogether() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithId(user(1, "a"));
+      mapper.copyUser(1);
+      mapper.copyUser(11);
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+
+      assertThat(results).extracting(BatchResult::getSql).containsExactly(
+          "insert into users (id, name) values (?, ?)",
+          "insert into users (id, name) select id + 10, name from users where id = ?");
+      assertThat(results.get(1).getUpdateCounts()).containsExactly(1, 1);
+    }
+  }
+
+  private static User user(Integer id, String name) {
+    User user = new User(name);
+    user.setId(id);
+    return user;
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class PrepareRecorder implements Interceptor {
+    private final List<String> statements = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      statements.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}
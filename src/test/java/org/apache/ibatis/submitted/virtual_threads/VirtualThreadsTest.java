@@ -0,0 +1,214 @@
+/**
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.virtual_threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A virtual thread that blocks while holding a monitor pins its carrier thread. These tests block platform threads at
+ * the points where a mapper workload may wait and check that they do not hold a monitor there, and run a workload on
+ * virtual threads when the JDK provides them.
+ */
+class VirtualThreadsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static BlockingInterceptor interceptor;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/virtual_threads/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    interceptor = new BlockingInterceptor();
+    sqlSessionFactory.getConfiguration().addInterceptor(interceptor);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/virtual_threads/CreateDB.sql");
+  }
+
+  @Test
+  void shouldNotHoldMonitorWhileWaitingForConnection() throws Exception {
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    try (Connection c1 = dataSource.getConnection(); Connection c2 = dataSource.getConnection()) {
+      AtomicReference<String> name = new AtomicReference<>();
+      Thread worker = new Thread(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          name.set(sqlSession.getMapper(Mapper.class).getUser(3).getName());
+        }
+      });
+      worker.start();
+      awaitBlocked(worker);
+      assertNoMonitorHeld(worker);
+      c1.close();
+      worker.join(10000);
+      assertEquals("User3", name.get());
+    }
+  }
+
+  @Test
+  void shouldNotHoldMonitorWhileLoadingLazily() throws Exception {
+    // the manager must be read from the database
+    sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName()).clear();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicReference<String> name = new AtomicReference<>();
+    Thread worker = new Thread(() -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        User user = sqlSession.getMapper(Mapper.class).getUserWithManager(2);
+        interceptor.block(release);
+        name.set(user.getManager().getName());
+      }
+    });
+    try {
+      worker.start();
+      awaitBlocked(worker);
+      assertNoMonitorHeld(worker);
+    } finally {
+      release.countDown();
+      worker.join(10000);
+    }
+    assertEquals("User1", name.get());
+  }
+
+  @Test
+  void shouldNotHoldMonitorWhileBlockedInCache() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Cache cache = new SynchronizedCache(new PerpetualCache("blocking") {
+      @Override
+      public Object getObject(Object key) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getObject(key);
+      }
+    });
+    Thread worker = new Thread(() -> cache.getObject("key"));
+    try {
+      worker.start();
+      awaitBlocked(worker);
+      assertNoMonitorHeld(worker);
+    } finally {
+      release.countDown();
+      worker.join(10000);
+    }
+  }
+
+  @Test
+  void shouldRunMapperWorkloadOnVirtualThreads() throws Exception {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    Assumptions.assumeTrue(executor != null, "virtual threads are not available");
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+        int id = 2 + i % 2;
+        futures.add(executor.submit(() -> {
+          try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.getMapper(Mapper.class).getUserWithManager(id).getManager().getName();
+          }
+        }));
+      }
+      for (Future<String> future : futures) {
+        assertEquals("User1", future.get(30, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    }
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      // before JDK 21 or a preview feature that is not enabled
+      return null;
+    }
+  }
+
+  private static void awaitBlocked(Thread thread) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+      assertTrue(thread.isAlive() && System.currentTimeMillis() < deadline, "Thread did not block");
+      Thread.sleep(10);
+    }
+  }
+
+  private static void assertNoMonitorHeld(Thread thread) {
+    ThreadInfo info = ManagementFactory.getThreadMXBean().getThreadInfo(new long[] { thread.getId() }, true, false)[0];
+    assertThat(info.getLockedMonitors()).isEmpty();
+    assertThat(info.getStackTrace())
+        .noneMatch(element -> "java.lang.Object".equals(element.getClassName()) && "wait".equals(element.getMethodName()));
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }))
+  static class BlockingInterceptor implements Interceptor {
+
+    private final ThreadLocal<CountDownLatch> latch = new ThreadLocal<>();
+
+    void block(CountDownLatch release) {
+      latch.set(release);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      CountDownLatch release = latch.get();
+      if (release != null) {
+        latch.remove();
+        release.await();
+      }
+      return invocation.proceed();
+    }
+  }
+
+}
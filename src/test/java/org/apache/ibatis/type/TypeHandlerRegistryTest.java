@@ -221,6 +221,54 @@ class TypeHandlerRegistryTest {
     assertTrue(typeHandlerRegistry.hasTypeHandler(Address.class));
   }
 
+  @Test
+  void shouldResolveHandlerForEachJdbcType() {
+    class Address {
+    }
+    TypeHandler<Address> varcharHandler = new AddressTypeHandler<>();
+    TypeHandler<Address> clobHandler = new ClobAddressTypeHandler<>();
+    assertNull(typeHandlerRegistry.getTypeHandler(Address.class, JdbcType.VARCHAR));
+    typeHandlerRegistry.register(Address.class, JdbcType.VARCHAR, varcharHandler);
+    assertSame(varcharHandler, typeHandlerRegistry.getTypeHandler(Address.class, JdbcType.VARCHAR));
+    assertSame(varcharHandler, typeHandlerRegistry.getTypeHandler(Address.class, JdbcType.CLOB));
+    typeHandlerRegistry.register(Address.class, JdbcType.CLOB, clobHandler);
+    assertSame(varcharHandler, typeHandlerRegistry.getTypeHandler(Address.class, JdbcType.VARCHAR));
+    assertSame(clobHandler, typeHandlerRegistry.getTypeHandler(Address.class, JdbcType.CLOB));
+    assertNull(typeHandlerRegistry.getTypeHandler(Address.class));
+  }
+
+  @Test
+  void shouldResolveDefaultEnumHandlerAfterItChanges() {
+    assertSame(EnumTypeHandler.class, typeHandlerRegistry.getTypeHandler(TestEnum.class).getClass());
+    TypeHandlerRegistry registry = new TypeHandlerRegistry();
+    registry.setDefaultEnumTypeHandler(EnumOrdinalTypeHandler.class);
+    assertSame(EnumOrdinalTypeHandler.class, registry.getTypeHandler(TestEnum.class).getClass());
+  }
+
+  static class AddressTypeHandler<T> extends BaseTypeHandler<T> {
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) {
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, String columnName) {
+      return null;
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, int columnIndex) {
+      return null;
+    }
+
+    @Override
+    public T getNullableResult(CallableStatement cs, int columnIndex) {
+      return null;
+    }
+  }
+
+  static class ClobAddressTypeHandler<T> extends AddressTypeHandler<T> {
+  }
+
   enum TestEnum {
     ONE,
     TWO